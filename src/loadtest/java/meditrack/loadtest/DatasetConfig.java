@@ -0,0 +1,55 @@
+package meditrack.loadtest;
+
+/**
+ * Dataset generator settings, read from {@code -Ddataset.*} system properties.
+ * Status mixes are {@code STATUS:weight} lists, e.g. {@code COMPLETED:75,CANCELLED:20,REVISIT:5}.
+ */
+public record DatasetConfig(
+        String mongoUri,
+        String database,
+        long seed,
+        long appointments,
+        int doctors,
+        int patients,
+        int historyDays,
+        int futureDays,
+        double doctorSkew,
+        double patientSkew,
+        String pastStatusMix,
+        String futureStatusMix,
+        double emergencyRate,
+        int workers,
+        int chunkSize,
+        int batchSize,
+        boolean drop) {
+
+    public static DatasetConfig fromSystemProperties() {
+        return new DatasetConfig(
+                System.getProperty("dataset.mongoUri", "mongodb://localhost:27017"),
+                System.getProperty("dataset.database", "meditrack_dataset"),
+                Long.getLong("dataset.seed", 42),
+                Long.getLong("dataset.appointments", 1_000_000),
+                Integer.getInteger("dataset.doctors", 200),
+                Integer.getInteger("dataset.patients", 50_000),
+                Integer.getInteger("dataset.historyDays", 730),
+                Integer.getInteger("dataset.futureDays", 90),
+                Double.parseDouble(System.getProperty("dataset.doctorSkew", "1.0")),
+                Double.parseDouble(System.getProperty("dataset.patientSkew", "0.8")),
+                System.getProperty("dataset.pastStatusMix", "COMPLETED:75,CANCELLED:18,REVISIT:4,RESCHEDULED:3"),
+                System.getProperty("dataset.futureStatusMix", "PENDING:35,CONFIRMED:40,SCHEDULED:15,CANCELLED:10"),
+                Double.parseDouble(System.getProperty("dataset.emergencyRate", "0.02")),
+                Integer.getInteger("dataset.workers", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("dataset.chunkSize", 10_000),
+                Integer.getInteger("dataset.batchSize", 1_000),
+                Boolean.getBoolean("dataset.drop"));
+    }
+
+    /**
+     * The same dataset shape with a different target, for callers that pick the database themselves.
+     */
+    public DatasetConfig withTarget(String mongoUri, String database) {
+        return new DatasetConfig(mongoUri, database, seed, appointments, doctors, patients, historyDays, futureDays,
+                doctorSkew, patientSkew, pastStatusMix, futureStatusMix, emergencyRate, workers, chunkSize, batchSize,
+                drop);
+    }
+}
@@ -0,0 +1,327 @@
+package meditrack.loadtest;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+import meditrack.enums.AppointmentStatus;
+import meditrack.model.Appointment;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-loads synthetic appointments (and the doctors they reference) for scale testing.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java@generate-dataset -Ddataset.appointments=5000000 -Ddataset.mongoUri=...
+ * </pre>
+ * The dataset is a pure function of the settings: appointment {@code i} is generated from a random stream
+ * seeded by {@code (seed, chunk)}, and its {@code _id} and {@code appointmentId} are derived from {@code i},
+ * so worker scheduling doesn't change the output and a rerun into the same database only fills in what is
+ * missing (duplicate keys are counted as skipped). Indexes are left to the application, which builds them
+ * on startup; building them once after the load is faster than maintaining them during it.
+ */
+public final class DatasetGenerator {
+
+    private static final String[] DEPARTMENTS = {"Cardiology", "Dermatology", "Neurology", "Pediatrics",
+            "Orthopedics", "General Medicine", "ENT", "Gynecology"};
+    private static final String[] FIRST_NAMES = {"Amal", "Nimal", "Kasun", "Dilini", "Sahan", "Tharushi", "Ruwan",
+            "Ishara", "Kavindi", "Chamara", "Nadeesha", "Supun", "Hiruni", "Pradeep", "Sanduni", "Lahiru", "Anjali",
+            "Dinesh", "Malsha", "Tharindu", "Sachini", "Janith", "Piumi", "Ravindu"};
+    private static final String[] LAST_NAMES = {"Perera", "Fernando", "Silva", "Jayasinghe", "Bandara", "Wickramasinghe",
+            "Gunawardena", "Rathnayake", "Dissanayake", "Herath", "Kumara", "Senanayake", "Rajapaksha", "Weerasinghe",
+            "Ekanayake", "Abeysekera"};
+    private static final String[] REASONS = {"Routine check-up", "Follow-up consultation", "Persistent headache",
+            "Chest pain", "Skin rash", "Back pain", "Fever and cough", "Blood pressure review", "Joint pain",
+            "Ear infection", "Vaccination", "Lab results review"};
+    private static final String[] SYMPTOMS = {"Fatigue", "Dizziness", "Shortness of breath", "Itching", "Nausea",
+            "Swelling", "Sore throat", "Blurred vision", "Numbness", "Insomnia"};
+    private static final String[] CANCELLATION_REASONS = {"Patient request", "Doctor unavailable",
+            "Rescheduled by clinic", "Patient recovered"};
+    private static final int[] DURATIONS = {15, 30, 30, 30, 45, 60};
+    // 09:00-17:00 every half hour, minus the 13:00-14:00 break seeded on every generated doctor
+    private static final int[] SLOT_MINUTES = {540, 570, 600, 630, 660, 690, 720, 750, 840, 870, 900, 930, 960, 990};
+    private static final int MAX_LEAD_DAYS = 60;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final DatasetConfig config;
+    private final StatusMix pastMix;
+    private final StatusMix futureMix;
+    private final ZipfSampler doctorSampler;
+    private final ZipfSampler patientSampler;
+    private final LocalDate firstDay;
+    private final int totalDays;
+    private final LocalDateTime now;
+
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    public DatasetGenerator(DatasetConfig config) {
+        this(config, LocalDate.now());
+    }
+
+    // The date spread is anchored on a day rather than an instant so a seed gives the same data all day
+    DatasetGenerator(DatasetConfig config, LocalDate anchor) {
+        this.config = config;
+        this.pastMix = StatusMix.parse(config.pastStatusMix());
+        this.futureMix = StatusMix.parse(config.futureStatusMix());
+        this.doctorSampler = new ZipfSampler(config.doctors(), config.doctorSkew());
+        this.patientSampler = new ZipfSampler(config.patients(), config.patientSkew());
+        this.firstDay = anchor.minusDays(config.historyDays());
+        this.totalDays = config.historyDays() + config.futureDays() + 1;
+        this.now = anchor.atStartOfDay();
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatasetConfig config = DatasetConfig.fromSystemProperties();
+        try (MongoClient client = MongoClients.create(config.mongoUri())) {
+            new DatasetGenerator(config).generate(client.getDatabase(config.database()));
+        }
+    }
+
+    static String doctorId(int doctorIndex) {
+        return String.format("DOC-G%04d", doctorIndex);
+    }
+
+    static String patientId(int patientIndex) {
+        return String.format("PAT-G%06d", patientIndex);
+    }
+
+    // Kept apart from the APP-#### ids the service hands out so the two never collide
+    static String appointmentId(long index) {
+        return String.format("GEN-%09d", index);
+    }
+
+    public void generate(MongoDatabase database) throws Exception {
+        MongoCollection<Document> appointments = database.getCollection("appointments");
+        if (config.drop()) {
+            long removed = appointments.deleteMany(Filters.regex("appointmentId", "^GEN-")).getDeletedCount();
+            System.out.printf("Removed %d previously generated appointments%n", removed);
+        }
+        seedDoctors(database.getCollection("doctors"));
+
+        long chunks = (config.appointments() + config.chunkSize() - 1) / config.chunkSize();
+        System.out.printf("Generating %d appointments for %d doctors and %d patients in %d chunks on %d workers (seed %d)%n",
+                config.appointments(), config.doctors(), config.patients(), chunks, config.workers(), config.seed());
+
+        long startNanos = System.nanoTime();
+        AtomicLong chunksDone = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(config.workers());
+        try {
+            List<Future<?>> pending = new ArrayList<>();
+            for (long chunk = 0; chunk < chunks; chunk++) {
+                long chunkIndex = chunk;
+                pending.add(workers.submit(() -> {
+                    insertChunk(appointments, chunkIndex);
+                    long done = chunksDone.incrementAndGet();
+                    if (done % Math.max(1, chunks / 20) == 0 || done == chunks) {
+                        System.out.printf("  %d/%d chunks, %d inserted, %d skipped%n",
+                                done, chunks, inserted.get(), skipped.get());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Done in %.1fs: %d inserted (%.0f docs/s), %d already present%n",
+                seconds, inserted.get(), inserted.get() / Math.max(seconds, 0.001), skipped.get());
+    }
+
+    private void seedDoctors(MongoCollection<Document> doctors) {
+        List<WriteModel<Document>> upserts = new ArrayList<>(config.doctors());
+        for (int i = 0; i < config.doctors(); i++) {
+            String doctorId = doctorId(i);
+            upserts.add(new ReplaceOneModel<>(Filters.eq("doctorId", doctorId),
+                    new Document("doctorId", doctorId)
+                            .append("doctorName", "Dr. " + LAST_NAMES[i % LAST_NAMES.length] + " " + doctorId)
+                            .append("fullName", FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[i % LAST_NAMES.length])
+                            .append("department", department(i))
+                            .append("specialization", department(i))
+                            .append("availableDays", List.of("Mon-Fri"))
+                            .append("workingHours", "09:00-17:00")
+                            .append("breaks", List.of("13:00-14:00"))
+                            .append("_class", "meditrack.model.Doctor"),
+                    new ReplaceOptions().upsert(true)));
+        }
+        if (!upserts.isEmpty()) {
+            doctors.bulkWrite(upserts, new BulkWriteOptions().ordered(false));
+        }
+    }
+
+    private void insertChunk(MongoCollection<Document> appointments, long chunk) {
+        SplittableRandom random = new SplittableRandom(mix(config.seed() + chunk * GOLDEN_GAMMA));
+        long from = chunk * config.chunkSize();
+        long to = Math.min(from + config.chunkSize(), config.appointments());
+
+        List<Document> batch = new ArrayList<>(config.batchSize());
+        for (long index = from; index < to; index++) {
+            batch.add(appointment(index, random));
+            if (batch.size() == config.batchSize()) {
+                insertBatch(appointments, batch);
+                batch = new ArrayList<>(config.batchSize());
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(appointments, batch);
+        }
+    }
+
+    private void insertBatch(MongoCollection<Document> appointments, List<Document> batch) {
+        try {
+            appointments.insertMany(batch, new InsertManyOptions().ordered(false));
+            inserted.addAndGet(batch.size());
+        } catch (MongoBulkWriteException e) {
+            long duplicates = e.getWriteErrors().stream().filter(error -> error.getCode() == 11000).count();
+            if (duplicates < e.getWriteErrors().size()) {
+                BulkWriteError first = e.getWriteErrors().stream()
+                        .filter(error -> error.getCode() != 11000).findFirst().orElseThrow();
+                throw new IllegalStateException("Bulk insert failed: " + first.getMessage(), e);
+            }
+            inserted.addAndGet(e.getWriteResult().getInsertedCount());
+            skipped.addAndGet(duplicates);
+        }
+    }
+
+    Document appointment(long index, SplittableRandom random) {
+        int doctor = doctorSampler.sample(random);
+        int patient = patientSampler.sample(random);
+
+        LocalDate day = firstDay.plusDays(random.nextInt(totalDays));
+        if (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            day = day.plusDays(day.getDayOfWeek() == DayOfWeek.SATURDAY ? 2 : 1);
+        }
+        LocalDateTime start = day.atTime(LocalTime.MIN).plusMinutes(SLOT_MINUTES[random.nextInt(SLOT_MINUTES.length)]);
+        int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+        boolean past = start.isBefore(now);
+        String status = (past ? pastMix : futureMix).pick(random);
+
+        LocalDateTime createdAt = start.minusDays(random.nextInt(MAX_LEAD_DAYS + 1)).minusMinutes(random.nextInt(600));
+        if (createdAt.isAfter(now)) {
+            createdAt = now.minusMinutes(random.nextInt(24 * 60));
+        }
+        LocalDateTime updatedAt = past && !"CANCELLED".equals(status) ? start.plusMinutes(duration) : createdAt;
+
+        String patientName = FIRST_NAMES[patient % FIRST_NAMES.length] + " " +
+                LAST_NAMES[(patient / FIRST_NAMES.length) % LAST_NAMES.length];
+        int age = 1 + (int) ((mix(patient + 1L) >>> 1) % 90);
+
+        Document document = new Document("_id", objectId(createdAt, index))
+                .append("appointmentId", appointmentId(index))
+                .append("patientId", patientId(patient))
+                .append("patientName", patientName)
+                .append("patientNameKey", patientName.toLowerCase())
+                .append("age", age)
+                .append("phoneNumber", String.format("07%08d", patient))
+                .append("patientEmail", patientName.toLowerCase().replace(' ', '.') + patient + "@example.com")
+                .append("doctorId", doctorId(doctor))
+                .append("doctorName", "Dr. " + LAST_NAMES[doctor % LAST_NAMES.length] + " " + doctorId(doctor))
+                .append("department", department(doctor))
+                .append("appointmentDateTime", toDate(start))
+                .append("duration", duration)
+                .append("endDateTime", toDate(start.plusMinutes(duration)))
+                .append("bufferedStart", toDate(start.minusMinutes(Appointment.BUFFER_MINUTES)))
+                .append("bufferedEnd", toDate(start.plusMinutes(duration + Appointment.BUFFER_MINUTES)))
+                .append("reason", REASONS[random.nextInt(REASONS.length)])
+                .append("symptoms", SYMPTOMS[random.nextInt(SYMPTOMS.length)])
+                .append("emergency", random.nextDouble() < config.emergencyRate())
+                .append("status", status)
+                .append("createdAt", toDate(createdAt))
+                .append("updatedAt", toDate(updatedAt))
+                .append("version", 0L)
+                .append("_class", "meditrack.model.Appointment");
+        // Spring Data leaves null fields out rather than storing them
+        if (random.nextInt(4) == 0) {
+            document.append("additionalNotes", "Synthetic record " + index);
+        }
+        if ("CANCELLED".equals(status)) {
+            document.append("cancellationReason", CANCELLATION_REASONS[random.nextInt(CANCELLATION_REASONS.length)]);
+        }
+        return document;
+    }
+
+    private static String department(int doctorIndex) {
+        return DEPARTMENTS[doctorIndex % DEPARTMENTS.length];
+    }
+
+    // Creation-time seconds up front keep _id order close to insertion order, as real ObjectIds would be;
+    // the index in the remaining bytes keeps it unique and stable across runs
+    private static ObjectId objectId(LocalDateTime createdAt, long index) {
+        ByteBuffer bytes = ByteBuffer.allocate(12);
+        bytes.putInt((int) createdAt.atZone(ZoneId.systemDefault()).toEpochSecond());
+        bytes.putLong(index);
+        return new ObjectId(bytes.array());
+    }
+
+    // Same conversion Spring Data applies to LocalDateTime fields
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // SplitMix64 finalizer, so neighbouring chunk seeds give unrelated streams
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record StatusMix(String[] statuses, int[] cumulativeWeights) {
+
+        static StatusMix parse(String spec) {
+            List<String> statuses = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected STATUS:weight but got '" + entry + "' in " + spec);
+                }
+                total += Integer.parseInt(parts[1].trim());
+                statuses.add(AppointmentStatus.valueOf(parts[0].trim().toUpperCase()).name());
+                cumulative.add(total);
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("Status mix needs a positive total weight: " + spec);
+            }
+            return new StatusMix(statuses.toArray(String[]::new),
+                    cumulative.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        String pick(SplittableRandom random) {
+            int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    return statuses[i];
+                }
+            }
+            return statuses[statuses.length - 1];
+        }
+    }
+}
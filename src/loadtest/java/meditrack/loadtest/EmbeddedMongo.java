@@ -0,0 +1,33 @@
+package meditrack.loadtest;
+
+import de.flapdoodle.embed.mongo.commands.ServerAddress;
+import de.flapdoodle.embed.mongo.distribution.Version;
+import de.flapdoodle.embed.mongo.transitions.Mongod;
+import de.flapdoodle.embed.mongo.transitions.RunningMongodProcess;
+import de.flapdoodle.reverse.TransitionWalker;
+
+/**
+ * Throwaway mongod for a load test run. The binary is downloaded on first use and cached under ~/.embedmongo.
+ */
+final class EmbeddedMongo implements AutoCloseable {
+
+    private final TransitionWalker.ReachedState<RunningMongodProcess> process;
+
+    private EmbeddedMongo(TransitionWalker.ReachedState<RunningMongodProcess> process) {
+        this.process = process;
+    }
+
+    static EmbeddedMongo start() {
+        return new EmbeddedMongo(Mongod.instance().start(Version.Main.V6_0));
+    }
+
+    String connectionString(String database) {
+        ServerAddress address = process.current().getServerAddress();
+        return "mongodb://" + address.getHost() + ":" + address.getPort() + "/" + database;
+    }
+
+    @Override
+    public void close() {
+        process.close();
+    }
+}
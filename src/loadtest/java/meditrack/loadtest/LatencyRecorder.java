@@ -0,0 +1,75 @@
+package meditrack.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps every latency sample per endpoint so percentiles are exact rather than bucketed.
+ */
+final class LatencyRecorder {
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    void record(String endpoint, int status, long nanos) {
+        endpoints.computeIfAbsent(endpoint, name -> new Endpoint()).add(status, nanos);
+    }
+
+    Map<String, Map<String, Object>> summarize(double seconds) {
+        Map<String, Map<String, Object>> summary = new TreeMap<>();
+        endpoints.forEach((name, endpoint) -> summary.put(name, endpoint.summarize(seconds)));
+        return summary;
+    }
+
+    long totalRequests() {
+        return endpoints.values().stream().mapToLong(endpoint -> endpoint.count).sum();
+    }
+
+    private static final class Endpoint {
+        private long[] samples = new long[1024];
+        private int count;
+        private long errors;
+        private final Map<Integer, Long> statuses = new TreeMap<>();
+
+        synchronized void add(int status, long nanos) {
+            if (count == samples.length) {
+                samples = Arrays.copyOf(samples, count * 2);
+            }
+            samples[count++] = nanos;
+            statuses.merge(status, 1L, Long::sum);
+            // 0 is a transport failure; 409 and 503 are outcomes the service is expected to return under load
+            if (status == 0 || status >= 500 && status != 503) {
+                errors++;
+            }
+        }
+
+        synchronized Map<String, Object> summarize(double seconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("errors", errors);
+            summary.put("throughputPerSec", round(count / seconds));
+            summary.put("p50Ms", percentile(sorted, 0.50));
+            summary.put("p95Ms", percentile(sorted, 0.95));
+            summary.put("p99Ms", percentile(sorted, 0.99));
+            summary.put("maxMs", count > 0 ? round(sorted[count - 1] / 1e6) : 0);
+            summary.put("statusCounts", new TreeMap<>(statuses));
+            return summary;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return round(sorted[Math.max(0, index)] / 1e6);
+        }
+    }
+
+    static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
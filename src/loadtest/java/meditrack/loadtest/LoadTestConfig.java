@@ -0,0 +1,53 @@
+package meditrack.loadtest;
+
+import java.nio.file.Path;
+
+/**
+ * Load test settings, read from {@code -Dloadtest.*} system properties.
+ */
+public record LoadTestConfig(
+        String label,
+        int durationSeconds,
+        int warmupSeconds,
+        int workers,
+        int doctors,
+        int patients,
+        String mongoUri,
+        boolean preloadDataset,
+        long stubLatencyMs,
+        long stubJitterMs,
+        double stubErrorRate,
+        int bookWeight,
+        int pollWeight,
+        int reactiveWeight,
+        int cancelWeight,
+        int rescheduleWeight,
+        int burstEverySeconds,
+        int burstLengthSeconds,
+        int burstMultiplier,
+        Path outputDir) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                System.getProperty("loadtest.label", "local"),
+                Integer.getInteger("loadtest.durationSeconds", 60),
+                Integer.getInteger("loadtest.warmupSeconds", 10),
+                Integer.getInteger("loadtest.workers", 32),
+                Integer.getInteger("loadtest.doctors", 20),
+                Integer.getInteger("loadtest.patients", 500),
+                System.getProperty("loadtest.mongoUri"),
+                Boolean.getBoolean("loadtest.dataset"),
+                Long.getLong("loadtest.stub.latencyMs", 40),
+                Long.getLong("loadtest.stub.jitterMs", 40),
+                Double.parseDouble(System.getProperty("loadtest.stub.errorRate", "0.01")),
+                Integer.getInteger("loadtest.mix.book", 20),
+                Integer.getInteger("loadtest.mix.poll", 55),
+                Integer.getInteger("loadtest.mix.reactive", 10),
+                Integer.getInteger("loadtest.mix.cancel", 10),
+                Integer.getInteger("loadtest.mix.reschedule", 5),
+                Integer.getInteger("loadtest.burst.everySeconds", 20),
+                Integer.getInteger("loadtest.burst.lengthSeconds", 5),
+                Integer.getInteger("loadtest.burst.multiplier", 5),
+                Path.of(System.getProperty("loadtest.outputDir", "target/loadtest")));
+    }
+}
@@ -0,0 +1,145 @@
+package meditrack.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import meditrack.MediTrackAppointmentApplication;
+import org.bson.Document;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the appointment service against an embedded mongod, stubbed patient/doctor services and an SMTP sink,
+ * drives a mixed workload and writes throughput and p50/p95/p99 per endpoint as JSON.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dloadtest.durationSeconds=120 -Dloadtest.label=$(git rev-parse --short HEAD)
+ * </pre>
+ * Set {@code -Dloadtest.mongoUri=...} to use an existing database instead of the embedded one, and
+ * {@code -Dloadtest.dataset=true} to preload it through {@link DatasetGenerator} (shaped by the same
+ * {@code -Ddataset.*} properties) so runs measure against a realistically sized collection.
+ */
+public final class LoadTestRunner {
+
+    private static final String DATABASE = "meditrack_loadtest";
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        EmbeddedMongo embeddedMongo = config.mongoUri() == null ? EmbeddedMongo.start() : null;
+        String mongoUri = embeddedMongo != null ? embeddedMongo.connectionString(DATABASE) : config.mongoUri();
+
+        try (RemoteServiceStubs stubs = new RemoteServiceStubs(
+                config.stubLatencyMs(), config.stubJitterMs(), config.stubErrorRate());
+             SmtpSink smtp = new SmtpSink()) {
+
+            seedDoctors(mongoUri, config.doctors());
+            if (config.preloadDataset()) {
+                preloadDataset(mongoUri);
+            }
+
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(MediTrackAppointmentApplication.class)
+                    .properties(serviceProperties(mongoUri, stubs, smtp))
+                    .run()) {
+                int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+
+                LatencyRecorder recorder = new LatencyRecorder();
+                System.out.printf("Load test '%s': %d workers, %ds warm-up, %ds measured%n",
+                        config.label(), config.workers(), config.warmupSeconds(), config.durationSeconds());
+                new WorkloadDriver(config, "http://localhost:" + port, recorder).run();
+
+                Path report = writeReport(config, recorder, stubs, smtp);
+                System.out.println("Report written to " + report.toAbsolutePath());
+            }
+        } finally {
+            if (embeddedMongo != null) {
+                embeddedMongo.close();
+            }
+        }
+    }
+
+    private static Map<String, Object> serviceProperties(String mongoUri, RemoteServiceStubs stubs, SmtpSink smtp) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.data.mongodb.uri", mongoUri);
+        properties.put("meditrack.services.patient-url", stubs.patientServiceUrl());
+        properties.put("meditrack.services.doctor-url", stubs.doctorServiceUrl());
+        properties.put("spring.mail.host", "localhost");
+        properties.put("spring.mail.port", smtp.port());
+        properties.put("spring.mail.properties.mail.smtp.auth", false);
+        properties.put("spring.mail.properties.mail.smtp.starttls.enable", false);
+        properties.put("appointment.reactive.enabled", true);
+        properties.put("appointment.archive.enabled", false);
+        properties.put("appointment.cache.invalidation.transport", "memory");
+        properties.put("eureka.client.enabled", false);
+        properties.put("spring.devtools.restart.enabled", false);
+        properties.put("logging.level.root", "WARN");
+        return properties;
+    }
+
+    // Doctors are read locally for schedules and department searches; the stub answers the remote lookups
+    private static void seedDoctors(String mongoUri, int count) {
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            var doctors = client.getDatabase(DATABASE).getCollection("doctors");
+            doctors.deleteMany(new Document("doctorId", new Document("$regex", "^DOC-L")));
+            List<Document> seeded = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String doctorId = WorkloadDriver.doctorId(i);
+                seeded.add(new Document("doctorId", doctorId)
+                        .append("doctorName", "Dr. Load " + doctorId)
+                        .append("fullName", "Load " + doctorId)
+                        .append("department", WorkloadDriver.department(i))
+                        .append("availableDays", List.of("Mon-Fri"))
+                        .append("workingHours", "09:00-17:00")
+                        .append("breaks", List.of("13:00-14:00")));
+            }
+            doctors.insertMany(seeded);
+        }
+    }
+
+    private static void preloadDataset(String mongoUri) throws Exception {
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            new DatasetGenerator(DatasetConfig.fromSystemProperties().withTarget(mongoUri, DATABASE))
+                    .generate(client.getDatabase(DATABASE));
+        }
+    }
+
+    private static Path writeReport(LoadTestConfig config, LatencyRecorder recorder, RemoteServiceStubs stubs,
+                                    SmtpSink smtp) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("config", config);
+        report.put("totalRequests", recorder.totalRequests());
+        report.put("throughputPerSec", LatencyRecorder.round(recorder.totalRequests() / (double) config.durationSeconds()));
+        report.put("endpoints", recorder.summarize(config.durationSeconds()));
+        report.put("stubs", Map.of(
+                "patientCalls", stubs.patientCalls(),
+                "doctorCalls", stubs.doctorCalls(),
+                "injectedErrors", stubs.injectedErrors()));
+        report.put("emailsReceived", smtp.messagesReceived());
+
+        Files.createDirectories(config.outputDir());
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC).format(Instant.now());
+        Path file = config.outputDir().resolve("loadtest-" + config.label() + "-" + timestamp + ".json");
+        new ObjectMapper()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(file.toFile(), report);
+        return file;
+    }
+}
@@ -0,0 +1,104 @@
+package meditrack.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the patient and doctor services, answering any id after a configurable delay and failing
+ * a configurable fraction of calls with 503.
+ */
+final class RemoteServiceStubs implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final AtomicLong patientCalls = new AtomicLong();
+    private final AtomicLong doctorCalls = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    RemoteServiceStubs(long latencyMs, long jitterMs, double errorRate) throws IOException {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 512);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/patient/", exchange -> handle(exchange, patientCalls, this::patientJson));
+        server.createContext("/doctor/", exchange -> handle(exchange, doctorCalls, this::doctorJson));
+        server.start();
+    }
+
+    String patientServiceUrl() {
+        return baseUrl() + "/patient";
+    }
+
+    String doctorServiceUrl() {
+        return baseUrl();
+    }
+
+    long patientCalls() {
+        return patientCalls.get();
+    }
+
+    long doctorCalls() {
+        return doctorCalls.get();
+    }
+
+    long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private interface Body {
+        String forId(String id);
+    }
+
+    private void handle(HttpExchange exchange, AtomicLong counter, Body body) throws IOException {
+        counter.incrementAndGet();
+        try (exchange) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Thread.sleep(latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0));
+            if (random.nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            byte[] json = body.forId(path.substring(path.lastIndexOf('/') + 1)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String patientJson(String patientId) {
+        return """
+                {"success":true,"message":"ok","data":{"patientId":"%s","fullName":"Load Patient %s","age":35,\
+                "phoneNumber":"0770000000","email":"%s@loadtest.local"}}""".formatted(patientId, patientId, patientId);
+    }
+
+    private String doctorJson(String doctorId) {
+        return """
+                {"doctorId":"%s","doctorName":"Dr. Load %s"}""".formatted(doctorId, doctorId);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
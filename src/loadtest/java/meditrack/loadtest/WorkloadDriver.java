@@ -0,0 +1,225 @@
+package meditrack.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop workers issuing a weighted mix of bookings, dashboard reads (blocking and reactive),
+ * cancellations and reschedules. Booking weight is multiplied during periodic bursts to mimic
+ * clinics opening their books.
+ */
+final class WorkloadDriver {
+
+    private static final String[] DEPARTMENTS = {"Cardiology", "Dermatology", "Neurology", "Pediatrics", "Orthopedics"};
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ConcurrentLinkedDeque<String> bookedIds = new ConcurrentLinkedDeque<>();
+
+    private volatile long recordFromNanos;
+    private long startNanos;
+
+    WorkloadDriver(LoadTestConfig config, String baseUrl, LatencyRecorder recorder) {
+        this.config = config;
+        this.baseUrl = baseUrl + "/api/appointments";
+        this.recorder = recorder;
+    }
+
+    static String department(int doctorIndex) {
+        return DEPARTMENTS[doctorIndex % DEPARTMENTS.length];
+    }
+
+    static String doctorId(int doctorIndex) {
+        return String.format("DOC-L%03d", doctorIndex);
+    }
+
+    void run() throws InterruptedException {
+        startNanos = System.nanoTime();
+        recordFromNanos = startNanos + Duration.ofSeconds(config.warmupSeconds()).toNanos();
+        long endNanos = recordFromNanos + Duration.ofSeconds(config.durationSeconds()).toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.workers(); i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < endNanos) {
+                        runOne();
+                    }
+                });
+            }
+        }
+    }
+
+    private void runOne() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int book = inBurst() ? config.bookWeight() * config.burstMultiplier() : config.bookWeight();
+        int total = book + config.pollWeight() + config.reactiveWeight() + config.cancelWeight() + config.rescheduleWeight();
+        int pick = random.nextInt(Math.max(1, total));
+
+        if ((pick -= book) < 0) {
+            book(random);
+        } else if ((pick -= config.pollWeight()) < 0) {
+            poll(random);
+        } else if ((pick -= config.reactiveWeight()) < 0) {
+            pollReactive(random);
+        } else if ((pick -= config.cancelWeight()) < 0) {
+            cancel(random);
+        } else {
+            reschedule(random);
+        }
+    }
+
+    private boolean inBurst() {
+        if (config.burstEverySeconds() <= 0) {
+            return false;
+        }
+        long elapsedSeconds = Duration.ofNanos(System.nanoTime() - startNanos).toSeconds();
+        return elapsedSeconds % config.burstEverySeconds() < config.burstLengthSeconds();
+    }
+
+    private void book(ThreadLocalRandom random) {
+        int doctor = random.nextInt(config.doctors());
+        String patientId = String.format("PAT-L%05d", random.nextInt(config.patients()));
+        Map<String, Object> body = Map.of(
+                "patientId", patientId,
+                "patientName", "Load Patient " + patientId,
+                "patientEmail", patientId + "@loadtest.local",
+                "doctorId", doctorId(doctor),
+                "department", department(doctor),
+                "appointmentDateTime", randomSlot(random).toString(),
+                "duration", 30,
+                "reason", "Routine check-up",
+                "symptoms", "none reported");
+
+        HttpRequest request = json(HttpRequest.newBuilder(URI.create(baseUrl + "/create")), body)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .build();
+        HttpResponse<String> response = send("POST /create", request);
+        if (response != null && response.statusCode() == 201) {
+            try {
+                JsonNode created = objectMapper.readTree(response.body());
+                bookedIds.add(created.path("appointmentId").asText());
+            } catch (Exception ignored) {
+                // the latency is what matters here
+            }
+        }
+    }
+
+    private void poll(ThreadLocalRandom random) {
+        int doctor = random.nextInt(config.doctors());
+        switch (random.nextInt(4)) {
+            case 0 -> get("GET /stats", "/stats");
+            case 1 -> get("GET /doctor/{id}/upcoming", "/doctor/" + doctorId(doctor) + "/upcoming");
+            case 2 -> get("GET /query", "/query?doctorId=" + doctorId(doctor) + "&page=0&size=20&includeCounts=true");
+            default -> get("GET /availability/department/{department}",
+                    "/availability/department/" + department(doctor) + "?count=5");
+        }
+    }
+
+    private void pollReactive(ThreadLocalRandom random) {
+        if (random.nextBoolean()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/reactive/doctor/" + doctorId(random.nextInt(config.doctors())) + "/upcoming"))
+                    .header("Accept", "application/x-ndjson")
+                    .GET().build();
+            send("GET /reactive/doctor/{id}/upcoming", request);
+        } else {
+            get("GET /reactive/stats", "/reactive/stats");
+        }
+    }
+
+    private void cancel(ThreadLocalRandom random) {
+        String appointmentId = bookedIds.pollFirst();
+        if (appointmentId == null) {
+            poll(random);
+            return;
+        }
+        HttpRequest request = json(HttpRequest.newBuilder(URI.create(baseUrl + "/cancel/" + appointmentId)),
+                Map.of("reason", "Load test cancellation"), "PUT").build();
+        send("PUT /cancel/{id}", request);
+    }
+
+    private void reschedule(ThreadLocalRandom random) {
+        String appointmentId = bookedIds.peekLast();
+        if (appointmentId == null) {
+            poll(random);
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + appointmentId
+                        + "/reschedule?newDateTime=" + randomSlot(random)))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        send("POST /{id}/reschedule", request);
+    }
+
+    // A weekday half-hour slot in the seeded doctors' working hours over the next four weeks
+    private static LocalDateTime randomSlot(ThreadLocalRandom random) {
+        LocalDate day = LocalDate.now().plusDays(1 + random.nextInt(28));
+        while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+            day = day.plusDays(1);
+        }
+        List<Integer> halfHours = new ArrayList<>();
+        for (int slot = 18; slot < 34; slot++) {
+            if (slot != 26 && slot != 27) {
+                halfHours.add(slot);
+            }
+        }
+        int slot = halfHours.get(random.nextInt(halfHours.size()));
+        return day.atTime(slot / 2, (slot % 2) * 30);
+    }
+
+    private void get(String endpoint, String path) {
+        send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    private HttpRequest.Builder json(HttpRequest.Builder builder, Map<String, Object> body) {
+        return json(builder, body, "POST");
+    }
+
+    private HttpRequest.Builder json(HttpRequest.Builder builder, Map<String, Object> body, String method) {
+        try {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response = null;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // recorded as status 0
+        }
+        if (start >= recordFromNanos) {
+            recorder.record(endpoint, response != null ? response.statusCode() : 0, System.nanoTime() - start);
+        }
+        return response;
+    }
+}
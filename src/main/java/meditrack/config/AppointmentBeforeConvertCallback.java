@@ -0,0 +1,27 @@
+package meditrack.config;
+
+import meditrack.model.Appointment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps derived Appointment fields in sync on every save/insert. Targeted $set updates bypass this
+ * callback and must set the derived fields themselves.
+ */
+@Component
+public class AppointmentBeforeConvertCallback implements BeforeConvertCallback<Appointment> {
+
+    @Value("${appointment.default-duration:30}")
+    private int defaultDuration;
+
+    @Override
+    public Appointment onBeforeConvert(Appointment appointment, String collection) {
+        appointment.setPatientNameKey(Appointment.toNameKey(appointment.getPatientName()));
+        appointment.updateTimeBounds(defaultDuration);
+        // Carries a legacy patientAge/patientPhone over before the save drops the read-only duplicates
+        appointment.setAge(appointment.getPatientAge());
+        appointment.setPhoneNumber(appointment.getPatientPhone());
+        return appointment;
+    }
+}
@@ -0,0 +1,110 @@
+package meditrack.config;
+
+import meditrack.model.Appointment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings documents written before a schema change up to date on startup.
+ */
+@Component
+public class AppointmentSchemaInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSchemaInitializer.class);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Value("${appointment.default-duration:30}")
+    private int defaultDuration;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            backfillVersion();
+            backfillPatientNameKey();
+            backfillTimeBounds();
+            ensureArchiveIndexes();
+        } catch (Exception e) {
+            logger.error("Appointment schema initialization failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // @Version treats a null version as a new entity, so legacy documents need a starting value
+    // or save() would try to insert them again
+    private void backfillVersion() {
+        long updated = mongoOperations.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                Appointment.class
+        ).getModifiedCount();
+
+        if (updated > 0) {
+            logger.info("Initialized version on {} legacy appointments", updated);
+        }
+    }
+
+    private void backfillPatientNameKey() {
+        long updated = mongoOperations.updateMulti(
+                Query.query(Criteria.where("patientNameKey").exists(false).and("patientName").ne(null)),
+                AggregationUpdate.update().set("patientNameKey").toValue(
+                        StringOperators.valueOf(StringOperators.valueOf("patientName").trim()).toLower()),
+                Appointment.class
+        ).getModifiedCount();
+
+        if (updated > 0) {
+            logger.info("Initialized patientNameKey on {} legacy appointments", updated);
+        }
+    }
+
+    // Overlap checks are range queries on the stored bounds and can't see documents without them, so this runs
+    // to completion before the application reports ready rather than as a background migration.
+    // Same values Appointment.updateTimeBounds computes, done server-side; date + number is a millisecond offset
+    private void backfillTimeBounds() {
+        long bufferMillis = Appointment.BUFFER_MINUTES * MINUTE_MILLIS;
+        AggregationExpression end = ArithmeticOperators.valueOf("appointmentDateTime").add(
+                ArithmeticOperators.valueOf(ConditionalOperators.ifNull("duration").then(defaultDuration))
+                        .multiplyBy(MINUTE_MILLIS));
+
+        long updated = mongoOperations.updateMulti(
+                Query.query(Criteria.where("bufferedEnd").exists(false).and("appointmentDateTime").ne(null)),
+                AggregationUpdate.update()
+                        .set("endDateTime").toValue(end)
+                        .set("bufferedStart").toValue(
+                                ArithmeticOperators.valueOf("appointmentDateTime").subtract(bufferMillis))
+                        .set("bufferedEnd").toValue(ArithmeticOperators.valueOf(end).add(bufferMillis)),
+                Appointment.class
+        ).getModifiedCount();
+
+        if (updated > 0) {
+            logger.info("Initialized endDateTime and buffered bounds on {} legacy appointments", updated);
+        }
+    }
+
+    // The archive collection isn't an @Document of its own, so auto-index-creation doesn't cover it
+    private void ensureArchiveIndexes() {
+        IndexOperations indexOps = mongoOperations.indexOps(Appointment.ARCHIVE_COLLECTION);
+        indexOps.ensureIndex(new Index().on("appointmentId", Sort.Direction.ASC));
+        indexOps.ensureIndex(new Index().on("patientId", Sort.Direction.ASC).on("status", Sort.Direction.ASC));
+        indexOps.ensureIndex(new Index().on("doctorId", Sort.Direction.ASC).on("status", Sort.Direction.ASC));
+    }
+}
@@ -0,0 +1,20 @@
+package meditrack.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Local Caffeine caches, kept consistent across instances by the CacheInvalidationBus.
+ * Names must also be listed in {@code spring.cache.cache-names}.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String APPOINTMENTS = "appointments";
+    public static final String APPOINTMENT_STATS = "appointmentStats";
+    public static final String DOCTOR_SCHEDULES = "doctorSchedules";
+
+    // Stats have a single entry
+    public static final String STATS_KEY = "all";
+}
@@ -20,7 +20,7 @@ public class CorsConfig {
                                 "http://localhost:5173",
                                 "https://your-frontend-domain.com"
                         )
-                        .allowedMethods("GET", "POST", "PUT", "DELETE")
+                        .allowedMethods("GET", "POST", "PUT", "PATCH", "DELETE")
                         .allowedHeaders("*")
                         .allowCredentials(true);
             }
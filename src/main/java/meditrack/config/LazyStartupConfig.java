@@ -0,0 +1,24 @@
+package meditrack.config;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+
+/**
+ * Keeps beans that no request needs before the first booking email out of startup.
+ */
+@Configuration
+public class LazyStartupConfig {
+
+    // The mail sender is auto-configured, so it can't carry @Lazy itself; EmailServiceImpl is @Lazy
+    // and injected lazily, so nothing else asks for it until an email is actually sent
+    @Bean
+    public static BeanFactoryPostProcessor lazyMailSenderPostProcessor() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanNamesForType(JavaMailSender.class, true, false)) {
+                beanFactory.getBeanDefinition(name).setLazyInit(true);
+            }
+        };
+    }
+}
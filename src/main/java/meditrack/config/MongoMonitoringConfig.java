@@ -0,0 +1,36 @@
+package meditrack.config;
+
+import meditrack.monitoring.MongoCommandMonitor;
+import meditrack.monitoring.RepositoryMethodLabel;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+@Configuration
+@ConditionalOnProperty(name = "appointment.mongo-monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoMonitoringConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoCommandMonitorCustomizer(MongoCommandMonitor monitor) {
+        return builder -> builder.addCommandListener(monitor);
+    }
+
+    // Tags each repository proxy so the command listener knows which method a command came from
+    @Bean
+    public static BeanPostProcessor repositoryMethodLabelPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    RepositoryMethodLabel.interceptorFor(information.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package meditrack.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "appointment.reactive.enabled", havingValue = "true")
+public class ReactiveClientConfig {
+
+    @Value("${meditrack.services.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+
+    @Bean
+    public WebClient patientWebClient(WebClient.Builder builder,
+                                      @Value("${meditrack.services.patient-url}") String patientUrl) {
+        return build(builder, patientUrl);
+    }
+
+    @Bean
+    public WebClient doctorWebClient(WebClient.Builder builder,
+                                     @Value("${meditrack.services.doctor-url}") String doctorUrl) {
+        return build(builder, doctorUrl);
+    }
+
+    private WebClient build(WebClient.Builder builder, String baseUrl) {
+        HttpClient httpClient = HttpClient.create()
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return builder.clone()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package meditrack.controller;
+
+import meditrack.dto.UtilizationReport;
+import meditrack.service.AppointmentRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final AppointmentRollupService rollupService;
+
+    @Autowired
+    public AnalyticsController(AppointmentRollupService rollupService) {
+        this.rollupService = rollupService;
+    }
+
+    // month is yyyy-MM and defaults to the current one
+    @GetMapping("/utilization/doctors/{doctorId}")
+    public ResponseEntity<UtilizationReport> getDoctorUtilization(@PathVariable String doctorId,
+                                                                  @RequestParam(required = false) String month) {
+        return ResponseEntity.ok(rollupService.getDoctorReport(doctorId, month));
+    }
+
+    @GetMapping("/utilization/departments/{department}")
+    public ResponseEntity<UtilizationReport> getDepartmentUtilization(@PathVariable String department,
+                                                                      @RequestParam(required = false) String month) {
+        return ResponseEntity.ok(rollupService.getDepartmentReport(department, month));
+    }
+
+    // Backfills a month from the appointments themselves, e.g. one from before rollups were kept
+    @PostMapping("/rollups/{month}/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups(@PathVariable String month) {
+        int buckets = rollupService.rebuild(month);
+        return ResponseEntity.ok(Map.of("month", month, "buckets", buckets));
+    }
+}
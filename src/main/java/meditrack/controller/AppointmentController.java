@@ -2,21 +2,38 @@ package meditrack.controller;
 
 import jakarta.validation.Valid;
 import meditrack.dto.AppointmentDTO;
+import meditrack.dto.AppointmentPatchRequest;
+import meditrack.dto.AppointmentSearchResponse;
+import meditrack.dto.AppointmentSearchSpec;
+import meditrack.dto.AvailableSlotDTO;
+import meditrack.dto.BulkOperationResult;
+import meditrack.dto.DoctorBulkRequest;
+import meditrack.dto.MultiGetRequest;
+import meditrack.dto.MultiGetResponse;
+import meditrack.dto.PageResponse;
+import meditrack.dto.ResourceVersion;
 import meditrack.dto.RevisitRequest;
+import meditrack.dto.SeriesRequest;
+import meditrack.dto.SeriesResult;
 import meditrack.dto.StatsDTO;
 import meditrack.exception.ConflictException;
 import meditrack.exception.SlotUnavailableException;
 import meditrack.exception.ValidationException;
 import meditrack.model.Appointment;
 import meditrack.service.AppointmentService;
+import meditrack.service.AvailabilityService;
+import meditrack.service.DoctorScheduleService;
 import meditrack.service.EmailService;
+import meditrack.util.StageTimer;
 import meditrack.exception.ResourceNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +45,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/appointments")
@@ -35,12 +53,17 @@ public class AppointmentController {
 
     private static final Logger logger = LoggerFactory.getLogger(AppointmentController.class);
     private final AppointmentService appointmentService;
+    private final AvailabilityService availabilityService;
     private final EmailService emailService;
+    private final DoctorScheduleService doctorScheduleService;
 
     @Autowired
-    public AppointmentController(AppointmentService appointmentService, EmailService emailService) {
+    public AppointmentController(AppointmentService appointmentService, AvailabilityService availabilityService,
+                                 @Lazy EmailService emailService, DoctorScheduleService doctorScheduleService) {
         this.appointmentService = appointmentService;
+        this.availabilityService = availabilityService;
         this.emailService = emailService;
+        this.doctorScheduleService = doctorScheduleService;
     }
 
     // MOVED UP: Specific routes first
@@ -63,6 +86,59 @@ public class AppointmentController {
         return ResponseEntity.ok(results);
     }
 
+    // Composable filters, sorting, pagination and optional per-status/department counts in one call
+    @GetMapping("/query")
+    public ResponseEntity<AppointmentSearchResponse> queryAppointments(@ModelAttribute AppointmentSearchSpec spec) {
+        return ResponseEntity.ok(appointmentService.search(spec));
+    }
+
+    @GetMapping("/text-search")
+    public ResponseEntity<PageResponse<AppointmentDTO>> textSearchAppointments(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String doctorId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ResponseEntity.ok(appointmentService.textSearch(
+                q, name, status, doctorId, startDate, endDate, page, size));
+    }
+
+    @GetMapping("/availability/department/{department}")
+    public ResponseEntity<List<AvailableSlotDTO>> getEarliestDepartmentAvailability(
+            @PathVariable String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "5") int count,
+            @RequestParam(required = false) Integer duration
+    ) {
+        return ResponseEntity.ok(availabilityService.findEarliestSlotsInDepartment(department, from, count, duration));
+    }
+
+    // Called by the doctor service after a doctor's days, hours, breaks or exceptions change
+    @DeleteMapping("/doctor/{doctorId}/schedule/cache")
+    public ResponseEntity<Void> evictDoctorSchedule(@PathVariable String doctorId) {
+        doctorScheduleService.evict(doctorId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // A doctor calling in sick or running late: cancel or move a whole range in one request
+    @PostMapping(value = "/doctor/{doctorId}/bulk-cancel", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkOperationResult> cancelDoctorAppointments(
+            @PathVariable String doctorId, @RequestBody DoctorBulkRequest request) {
+        return ResponseEntity.ok(appointmentService.cancelDoctorAppointments(
+                doctorId, request.getFrom(), request.getTo(), request.getReason()));
+    }
+
+    @PostMapping(value = "/doctor/{doctorId}/bulk-shift", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BulkOperationResult> shiftDoctorAppointments(
+            @PathVariable String doctorId, @RequestBody DoctorBulkRequest request) {
+        return ResponseEntity.ok(appointmentService.shiftDoctorAppointments(
+                doctorId, request.getFrom(), request.getTo(), request.getShiftMinutes()));
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<StatsDTO> getAppointmentStats() {
         return ResponseEntity.ok(appointmentService.getAppointmentStats());
@@ -74,7 +150,13 @@ public class AppointmentController {
     }
 
     @GetMapping("/doctor/{doctorId}/upcoming")
-    public ResponseEntity<List<AppointmentDTO>> getUpcomingAppointmentsByDoctor(@PathVariable String doctorId) {
+    public ResponseEntity<List<AppointmentDTO>> getUpcomingAppointmentsByDoctor(
+            @PathVariable String doctorId, WebRequest request) {
+        // Answer polling clients with 304 from a count/max(updatedAt) projection before loading anything
+        ResourceVersion version = appointmentService.getUpcomingAppointmentsByDoctorVersion(doctorId);
+        if (request.checkNotModified(version.getETag(), version.getLastModifiedMillis())) {
+            return null;
+        }
         return ResponseEntity.ok(appointmentService.getUpcomingAppointmentsByDoctor(doctorId));
     }
 
@@ -109,18 +191,34 @@ public class AppointmentController {
         } catch (ResourceNotFoundException e) {
             logger.error("Appointment not found with ID: {}", appointmentId);
             return ResponseEntity.notFound().build();
+        } catch (ConflictException e) {
+            logger.warn("Cannot complete appointment {}: {}", appointmentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (Exception e) {
             logger.error("Error marking appointment {} as completed: {}", appointmentId, e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @PutMapping("/{appointmentId}/no-show")
+    public ResponseEntity<AppointmentDTO> markAsNoShow(@PathVariable String appointmentId) {
+        try {
+            return ResponseEntity.ok(appointmentService.markNoShow(appointmentId));
+        } catch (ResourceNotFoundException e) {
+            logger.error("Appointment not found with ID: {}", appointmentId);
+            return ResponseEntity.notFound().build();
+        } catch (ConflictException e) {
+            logger.warn("Cannot mark appointment {} as no-show: {}", appointmentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @PutMapping("/{appointmentId}/confirm")
     public ResponseEntity<String> confirmAppointment(@PathVariable String appointmentId) {
         try {
             Appointment appointment = appointmentService.confirmAppointment(appointmentId);
 
-            try {
+            try (StageTimer.Stage ignored = StageTimer.stage("email")) {
                 emailService.sendAppointmentConfirmation(
                         appointment.getPatientEmail(),
                         appointment.getPatientName(),
@@ -136,6 +234,9 @@ public class AppointmentController {
         } catch (ResourceNotFoundException e) {
             logger.error("Appointment not found: {}", appointmentId);
             return ResponseEntity.notFound().build();
+        } catch (ConflictException e) {
+            logger.warn("Cannot confirm appointment {}: {}", appointmentId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             logger.error("Error confirming appointment: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -169,16 +270,8 @@ public ResponseEntity<?> cancelAppointment(
             ));
         }
 
-        // ✅ IMPROVED: First check if appointment exists before cancelling
-        AppointmentDTO existingAppointment = appointmentService.getAppointmentById(appointmentId);
-        logger.info("Found appointment to cancel: {} for patient: {}",
-                appointmentId, existingAppointment.getPatientName());
-
-        // ✅ FIXED: Remove duplicate call to cancelAppointment
-        appointmentService.cancelAppointment(appointmentId, reason.trim());
-
-        // Get updated appointment to return in response
-        AppointmentDTO canceledAppointment = appointmentService.getAppointmentById(appointmentId);
+        // Transition is applied atomically; the updated appointment comes back from the same write
+        AppointmentDTO canceledAppointment = appointmentService.cancelAppointment(appointmentId, reason.trim());
 
         logger.info("Appointment {} cancelled successfully, status: {}",
                 appointmentId, canceledAppointment.getStatus());
@@ -194,6 +287,12 @@ public ResponseEntity<?> cancelAppointment(
                 "error", "Appointment not found",
                 "message", "Appointment not found with ID: " + appointmentId
         ));
+    } catch (ConflictException e) {
+        logger.warn("Cannot cancel appointment {}: {}", appointmentId, e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", "Invalid status transition",
+                "message", e.getMessage()
+        ));
     } catch (Exception e) {
         logger.error("Error cancelling appointment {}: {}", appointmentId, e.getMessage(), e);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of(
@@ -211,7 +310,7 @@ public ResponseEntity<?> cancelAppointment(
             logger.info("Attempting to reschedule appointment {} to {}", appointmentId, newDateTime);
             AppointmentDTO rescheduledAppointment = appointmentService.rescheduleAppointment(appointmentId, newDateTime);
 
-            try {
+            try (StageTimer.Stage ignored = StageTimer.stage("email")) {
                 emailService.sendAppointmentRescheduled(
                         rescheduledAppointment.getPatientEmail(),
                         rescheduledAppointment.getPatientName(),
@@ -252,6 +351,14 @@ public ResponseEntity<?> cancelAppointment(
 
 
 
+    // Recurring follow-ups; 201 when anything was booked, 409 with the per-occurrence report otherwise
+    @PostMapping(value = "/{appointmentId}/series", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SeriesResult> createSeries(@PathVariable String appointmentId,
+                                                     @RequestBody SeriesRequest request) {
+        SeriesResult result = appointmentService.createSeries(appointmentId, request);
+        return ResponseEntity.status(result.getBooked() > 0 ? HttpStatus.CREATED : HttpStatus.CONFLICT).body(result);
+    }
+
     // ✅ FIXED: Create revisit appointment - NO EMAIL SENDING HERE (service handles it)
 
 
@@ -336,9 +443,23 @@ public ResponseEntity<?> createRevisitAppointment(
         return ResponseEntity.ok(appointmentService.getAllAppointments());
     }
 
+    // One round trip for lists that would otherwise fetch each appointment by id
+    @PostMapping(value = "/_mget", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MultiGetResponse> getAppointmentsByIds(@RequestBody MultiGetRequest request) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsByIds(request.getIds()));
+    }
+
     @GetMapping("/{appointmentId}")
-    public ResponseEntity<AppointmentDTO> getAppointmentById(@PathVariable String appointmentId) {
-        return ResponseEntity.ok(appointmentService.getAppointmentById(appointmentId));
+    public ResponseEntity<AppointmentDTO> getAppointmentById(@PathVariable String appointmentId, WebRequest request) {
+        Optional<ResourceVersion> version = appointmentService.getAppointmentVersion(appointmentId);
+        if (version.isPresent()
+                && request.checkNotModified(version.get().getETag(), version.get().getLastModifiedMillis())) {
+            return null;
+        }
+        // The body must be at least as new as the ETag just sent, so a cached copy older than it is replaced
+        return ResponseEntity.ok(version.isPresent() ?
+                appointmentService.getAppointmentAtVersion(appointmentId, version.get().getCount()) :
+                appointmentService.getAppointmentById(appointmentId));
     }
 
     @PutMapping("/{appointmentId}")
@@ -347,7 +468,7 @@ public ResponseEntity<?> createRevisitAppointment(
         AppointmentDTO updatedAppointment = appointmentService.updateAppointment(appointmentId, appointmentDTO);
 
         if ("CONFIRMED".equalsIgnoreCase(updatedAppointment.getStatus())) {
-            try {
+            try (StageTimer.Stage ignored = StageTimer.stage("email")) {
                 emailService.sendAppointmentConfirmation(
                         updatedAppointment.getPatientEmail(),
                         updatedAppointment.getPatientName(),
@@ -363,6 +484,12 @@ public ResponseEntity<?> createRevisitAppointment(
         return ResponseEntity.ok(updatedAppointment);
     }
 
+    @PatchMapping(value = "/{appointmentId}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AppointmentDTO> patchAppointment(
+            @PathVariable String appointmentId, @RequestBody AppointmentPatchRequest patch) {
+        return ResponseEntity.ok(appointmentService.patchAppointment(appointmentId, patch));
+    }
+
     @DeleteMapping("/{appointmentId}")
     public ResponseEntity<String> deleteAppointment(@PathVariable String appointmentId) {
         boolean isDeleted = appointmentService.deleteAppointmentById(appointmentId);
@@ -0,0 +1,50 @@
+package meditrack.controller;
+
+import meditrack.migration.MigrationRunner;
+import meditrack.model.MigrationCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/migrations")
+@ConditionalOnProperty(name = "appointment.migration.enabled", havingValue = "true", matchIfMissing = true)
+public class MigrationController {
+
+    private final MigrationRunner migrationRunner;
+
+    @Autowired
+    public MigrationController(MigrationRunner migrationRunner) {
+        this.migrationRunner = migrationRunner;
+    }
+
+    // Every known migration with its checkpoint, NOT_STARTED if it has never run
+    @GetMapping
+    public ResponseEntity<List<MigrationCheckpoint>> getMigrations() {
+        return ResponseEntity.ok(migrationRunner.getStatus());
+    }
+
+    @GetMapping("/{migrationId}")
+    public ResponseEntity<MigrationCheckpoint> getMigration(@PathVariable String migrationId) {
+        return ResponseEntity.ok(migrationRunner.getStatus(migrationId));
+    }
+
+    // Runs in the background from the last checkpoint; poll the status for progress
+    @PostMapping("/{migrationId}/start")
+    public ResponseEntity<MigrationCheckpoint> startMigration(@PathVariable String migrationId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(migrationRunner.start(migrationId));
+    }
+
+    @PostMapping("/{migrationId}/pause")
+    public ResponseEntity<MigrationCheckpoint> pauseMigration(@PathVariable String migrationId) {
+        return ResponseEntity.ok(migrationRunner.pause(migrationId));
+    }
+}
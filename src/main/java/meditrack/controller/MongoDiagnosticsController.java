@@ -0,0 +1,38 @@
+package meditrack.controller;
+
+import meditrack.monitoring.MongoCommandMonitor;
+import meditrack.monitoring.MongoCommandStats;
+import meditrack.monitoring.SlowMongoCommand;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/mongo")
+@ConditionalOnProperty(name = "appointment.mongo-monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoDiagnosticsController {
+
+    private final MongoCommandMonitor mongoCommandMonitor;
+
+    @Autowired
+    public MongoDiagnosticsController(MongoCommandMonitor mongoCommandMonitor) {
+        this.mongoCommandMonitor = mongoCommandMonitor;
+    }
+
+    // Latency per repository method and command, slowest mean first
+    @GetMapping("/commands")
+    public ResponseEntity<List<MongoCommandStats>> getCommandStats() {
+        return ResponseEntity.ok(mongoCommandMonitor.getCommandStats());
+    }
+
+    // Most recent slow commands, newest first, with their explain plan once captured
+    @GetMapping("/slow-commands")
+    public ResponseEntity<List<SlowMongoCommand>> getSlowCommands() {
+        return ResponseEntity.ok(mongoCommandMonitor.getSlowCommands());
+    }
+}
@@ -0,0 +1,56 @@
+package meditrack.controller;
+
+import meditrack.dto.AppointmentDTO;
+import meditrack.dto.StatsDTO;
+import meditrack.service.ReactiveAppointmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Opt-in non-blocking variants of the dashboard read endpoints.
+ * Request {@code application/x-ndjson} to stream results one document at a time with backpressure;
+ * plain {@code application/json} collects them into an array like the blocking endpoints.
+ */
+@RestController
+@RequestMapping("/api/appointments/reactive")
+@ConditionalOnProperty(name = "appointment.reactive.enabled", havingValue = "true")
+public class ReactiveAppointmentController {
+
+    private final ReactiveAppointmentService reactiveAppointmentService;
+
+    @Autowired
+    public ReactiveAppointmentController(ReactiveAppointmentService reactiveAppointmentService) {
+        this.reactiveAppointmentService = reactiveAppointmentService;
+    }
+
+    @GetMapping(value = "/doctor/{doctorId}/upcoming",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<AppointmentDTO> getUpcomingAppointmentsByDoctor(@PathVariable String doctorId) {
+        return reactiveAppointmentService.getUpcomingAppointmentsByDoctor(doctorId);
+    }
+
+    @GetMapping(value = "/patient/{patientId}/history",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<AppointmentDTO> getAppointmentHistoryByPatient(@PathVariable String patientId) {
+        return reactiveAppointmentService.getAppointmentHistoryByPatient(patientId);
+    }
+
+    @GetMapping(value = "/search",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<AppointmentDTO> searchAppointments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate
+    ) {
+        return reactiveAppointmentService.searchAppointments(status, startDate, endDate);
+    }
+
+    @GetMapping("/stats")
+    public Mono<StatsDTO> getAppointmentStats() {
+        return reactiveAppointmentService.getAppointmentStats();
+    }
+}
@@ -1,6 +1,7 @@
 
 package meditrack.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -32,4 +33,8 @@ public class AppointmentDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Lets a cached copy be checked against the stored document; not part of the API
+    @JsonIgnore
+    private Long version;
+
 }
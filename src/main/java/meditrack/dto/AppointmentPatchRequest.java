@@ -0,0 +1,25 @@
+package meditrack.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Partial update of an appointment. Fields left null are not touched.
+ * Status changes go through the dedicated confirm/cancel/complete/reschedule endpoints.
+ */
+@Data
+public class AppointmentPatchRequest {
+    private String doctorId;
+    private LocalDateTime appointmentDateTime;
+    private Integer duration;
+
+    private String patientName;
+    private String patientEmail;
+    private String phoneNumber;
+    private Integer age;
+    private String department;
+    private String reason;
+    private String symptoms;
+    private String additionalNotes;
+}
@@ -0,0 +1,15 @@
+package meditrack.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.Map;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentSearchResponse extends PageResponse<AppointmentDTO> {
+    private Map<String, Long> countsByStatus;
+    private Map<String, Long> countsByDepartment;
+}
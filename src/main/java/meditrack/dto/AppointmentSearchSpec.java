@@ -0,0 +1,35 @@
+package meditrack.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Composable appointment query. Every field is optional; the ones that are set are ANDed together
+ * into a single Mongo query. Bound from request parameters by {@code GET /api/appointments/query}.
+ */
+@Data
+public class AppointmentSearchSpec {
+    private List<String> status;
+    private String doctorId;
+    private String patientId;
+    private String department;
+    private Boolean emergency;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    private String text;        // $text over patient name, reason, symptoms and notes
+    private String name;        // patient name prefix
+
+    private String sortBy;      // defaults to relevance for text queries, appointmentDateTime otherwise
+    private String direction = "asc";
+    private int page = 0;
+    private int size = 20;
+
+    private boolean includeCounts;  // adds totals per status and department via $facet
+}
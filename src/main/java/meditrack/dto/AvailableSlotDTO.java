@@ -0,0 +1,18 @@
+package meditrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableSlotDTO {
+    private String doctorId;
+    private String doctorName;
+    private String department;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
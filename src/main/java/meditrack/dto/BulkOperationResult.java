@@ -0,0 +1,33 @@
+package meditrack.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a doctor-day bulk operation: which appointments changed and why the others were left alone.
+ */
+@Data
+@NoArgsConstructor
+public class BulkOperationResult {
+    private String doctorId;
+    private String operation;
+    private int matched;
+    private int updated;
+    private List<String> updatedAppointmentIds = new ArrayList<>();
+    private Map<String, String> skipped = new LinkedHashMap<>();
+    private int notificationsQueued;
+
+    public BulkOperationResult(String doctorId, String operation) {
+        this.doctorId = doctorId;
+        this.operation = operation;
+    }
+
+    public void skip(String appointmentId, String reason) {
+        skipped.put(appointmentId, reason);
+    }
+}
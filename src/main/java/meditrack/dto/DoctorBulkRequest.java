@@ -0,0 +1,16 @@
+package meditrack.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Range of a doctor's appointments to cancel or move in one request. {@code from} is inclusive, {@code to} exclusive.
+ */
+@Data
+public class DoctorBulkRequest {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String reason;        // bulk cancel
+    private Integer shiftMinutes; // bulk shift, negative to move earlier
+}
@@ -0,0 +1,20 @@
+package meditrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One patient's entry in a batched notification; date and time are already formatted for display.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailNotification {
+    private String to;
+    private String patientName;
+    private String doctorName;
+    private String date;
+    private String time;
+    private String reason;
+}
@@ -0,0 +1,10 @@
+package meditrack.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MultiGetRequest {
+    private List<String> ids;
+}
@@ -0,0 +1,17 @@
+package meditrack.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Appointments found for a multi-get, in the order their ids were requested, and the ids that matched nothing.
+ */
+@Data
+@NoArgsConstructor
+public class MultiGetResponse {
+    private List<AppointmentDTO> appointments = new ArrayList<>();
+    private List<String> missing = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package meditrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageResponse<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public static int totalPages(long totalElements, int size) {
+        return size > 0 ? (int) ((totalElements + size - 1) / size) : 0;
+    }
+}
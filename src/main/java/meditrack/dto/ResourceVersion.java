@@ -0,0 +1,26 @@
+package meditrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Cheap validator for conditional GETs, built from a count and max(updatedAt) projection
+ * instead of the documents themselves. For a single appointment the count is its version.
+ */
+@Getter
+@AllArgsConstructor
+public class ResourceVersion {
+    private long count;
+    private LocalDateTime lastModified;
+
+    public long getLastModifiedMillis() {
+        return lastModified != null ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    public String getETag() {
+        return "\"" + count + "-" + Math.max(getLastModifiedMillis(), 0) + "\"";
+    }
+}
@@ -0,0 +1,18 @@
+package meditrack.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recurring follow-ups for an existing appointment, e.g. weekly for 8 weeks or every 14 days 6 times.
+ * Without {@code firstDateTime} the series starts one interval after the original appointment.
+ */
+@Data
+public class SeriesRequest {
+    private LocalDateTime firstDateTime;
+    private Integer intervalDays;
+    private Integer occurrences;
+    private String reason;
+    private boolean allOrNothing; // book nothing unless every occurrence is free
+}
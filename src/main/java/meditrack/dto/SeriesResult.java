@@ -0,0 +1,35 @@
+package meditrack.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What happened to each occurrence of a series: booked, or why not and which nearby slots are free instead.
+ */
+@Data
+@NoArgsConstructor
+public class SeriesResult {
+    private String originalAppointmentId;
+    private int requested;
+    private int booked;
+    private List<Occurrence> occurrences = new ArrayList<>();
+
+    public enum OccurrenceStatus { BOOKED, CONFLICT, OUTSIDE_WORKING_HOURS, IN_PAST, NOT_BOOKED }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Occurrence {
+        private int index;
+        private LocalDateTime requestedDateTime;
+        private OccurrenceStatus status;
+        private AppointmentDTO appointment;
+        private String message;
+        private List<LocalDateTime> alternatives;
+    }
+}
@@ -0,0 +1,42 @@
+package meditrack.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A month of appointment counts for one doctor or department, with booked time against the doctors' working
+ * time, in total and per day; department reports also break down per doctor.
+ */
+@Data
+@NoArgsConstructor
+public class UtilizationReport {
+    private String doctorId;
+    private String department;
+    private String month;
+    private int bucketsRead;
+    private Line total = new Line();
+    private List<Line> days = new ArrayList<>();
+    private List<Line> doctors = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    public static class Line {
+        private String key;
+        private long created;
+        private long confirmed;
+        private long rescheduled;
+        private long cancelled;
+        private long completed;
+        private long noShow;
+        private long bookedMinutes;
+        private long workingMinutes;
+        private double utilization;
+
+        public Line(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package meditrack.enums;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum AppointmentStatus {
     SCHEDULED,
     CONFIRMED,
@@ -7,5 +10,26 @@ public enum AppointmentStatus {
     CANCELLED,
     RESCHEDULED,
     PENDING,
-    REVISIT
-}
\ No newline at end of file
+    REVISIT,
+    NO_SHOW;
+
+    /**
+     * Statuses an appointment may currently be in for a transition into this status to be allowed.
+     * COMPLETED, CANCELLED and NO_SHOW are terminal: nothing transitions out of them.
+     */
+    public Set<AppointmentStatus> allowedSources() {
+        return switch (this) {
+            case CONFIRMED -> EnumSet.of(SCHEDULED, PENDING, RESCHEDULED, REVISIT);
+            case COMPLETED, CANCELLED, NO_SHOW, RESCHEDULED -> EnumSet.of(SCHEDULED, PENDING, CONFIRMED, RESCHEDULED, REVISIT);
+            default -> EnumSet.noneOf(AppointmentStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(AppointmentStatus target) {
+        return target.allowedSources().contains(this);
+    }
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED || this == NO_SHOW;
+    }
+}
@@ -9,7 +9,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 
 @FeignClient(
         name = "doctor-service",
-        url = "https://doctorpanel-backend.onrender.com/api",
+        url = "${meditrack.services.doctor-url}",
         primary = true,
         fallback = DoctorServiceClientFallback.class
 
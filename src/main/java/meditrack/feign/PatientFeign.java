@@ -7,7 +7,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 // ✅ Feign Client pointing to deployed Patient Service
-@FeignClient(name = "patient-service", url = "https://patient-service-ntk0.onrender.com/api/patient")
+@FeignClient(name = "patient-service", url = "${meditrack.services.patient-url}")
 public interface PatientFeign {
 
     @GetMapping("/{patientId}")
@@ -0,0 +1,95 @@
+package meditrack.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows observed latency. While requests complete close to the best latency
+ * seen recently the limit grows by roughly its square root; as latency climbs past
+ * {@code tolerance} times that baseline the limit shrinks in proportion, and a failed request
+ * (5xx or exception) cuts it multiplicatively.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    // The no-load latency is the best RTT over the current and the previous window of this many samples, so
+    // a permanent shift is picked up within two windows while one lucky or unlucky sample can't reset it
+    private static final int BASELINE_WINDOW = 500;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long windowMinRttNanos = Long.MAX_VALUE;
+    private long previousWindowMinRttNanos = Long.MAX_VALUE;
+    private int samplesInWindow;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double smoothing) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean failed) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        update(rttNanos, failed, inFlightBeforeRelease);
+    }
+
+    private synchronized void update(long rttNanos, boolean failed, int inFlightBeforeRelease) {
+        if (failed) {
+            estimatedLimit = estimatedLimit * BACKOFF_RATIO;
+        } else {
+            windowMinRttNanos = Math.min(windowMinRttNanos, rttNanos);
+            long baselineRttNanos = Math.min(windowMinRttNanos, previousWindowMinRttNanos);
+            if (++samplesInWindow >= BASELINE_WINDOW) {
+                previousWindowMinRttNanos = windowMinRttNanos;
+                windowMinRttNanos = Long.MAX_VALUE;
+                samplesInWindow = 0;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRttNanos / Math.max(1, rttNanos)));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            // Latency at low utilisation says nothing about a higher limit
+            if (target > estimatedLimit && inFlightBeforeRelease * 2 < estimatedLimit) {
+                target = estimatedLimit;
+            }
+            estimatedLimit = estimatedLimit * (1 - smoothing) + target * smoothing;
+        }
+
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,167 @@
+package meditrack.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import meditrack.exception.GlobalExceptionHandler.ApiError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sheds API requests beyond the adaptive concurrency limit with an immediate 503 instead of letting them
+ * queue behind slow downstream calls. Reads and writes have separate limits so a burst of bookings
+ * can't starve the dashboards, and the other way round.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "appointment.limiter.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private final AdaptiveConcurrencyLimiter readLimiter;
+    private final AdaptiveConcurrencyLimiter writeLimiter;
+    private final Counter readRejections;
+    private final Counter writeRejections;
+    private final ObjectMapper objectMapper;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper,
+            @Value("${appointment.limiter.read.initial:50}") int readInitial,
+            @Value("${appointment.limiter.read.min:10}") int readMin,
+            @Value("${appointment.limiter.read.max:400}") int readMax,
+            @Value("${appointment.limiter.write.initial:20}") int writeInitial,
+            @Value("${appointment.limiter.write.min:5}") int writeMin,
+            @Value("${appointment.limiter.write.max:100}") int writeMax,
+            @Value("${appointment.limiter.tolerance:2.0}") double tolerance,
+            @Value("${appointment.limiter.smoothing:0.2}") double smoothing,
+            @Value("${appointment.limiter.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.readLimiter = new AdaptiveConcurrencyLimiter(
+                "read", readInitial, readMin, readMax, tolerance, smoothing);
+        this.writeLimiter = new AdaptiveConcurrencyLimiter(
+                "write", writeInitial, writeMin, writeMax, tolerance, smoothing);
+        this.readRejections = register(meterRegistry, readLimiter);
+        this.writeRejections = register(meterRegistry, writeLimiter);
+    }
+
+    private static Counter register(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("appointment.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("pool", limiter.getName())
+                .register(registry);
+        Gauge.builder("appointment.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("pool", limiter.getName())
+                .register(registry);
+        return Counter.builder("appointment.concurrency.rejected")
+                .tag("pool", limiter.getName())
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/")
+                || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+        AdaptiveConcurrencyLimiter limiter = read ? readLimiter : writeLimiter;
+
+        if (!limiter.tryAcquire()) {
+            (read ? readRejections : writeRejections).increment();
+            logger.debug("Shed {} {} at {} limit {}", request.getMethod(), request.getRequestURI(),
+                    limiter.getName(), limiter.getLimit());
+            reject(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                // The permit covers the request until its async processing finishes, not just this thread
+                request.getAsyncContext().addListener(new ReleasingListener(limiter, start));
+            } else {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private static final class ReleasingListener implements AsyncListener {
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingListener(AdaptiveConcurrencyLimiter limiter, long start) {
+            this.limiter = limiter;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            ServletResponse response = event.getSuppliedResponse();
+            release(!(response instanceof HttpServletResponse http) || http.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release(true);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A nested startAsync drops the listeners registered so far, so stay on the new context
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release(boolean failed) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiError(HttpStatus.SERVICE_UNAVAILABLE,
+                "Server is busy, please retry shortly", request.getRequestURI()));
+    }
+}
@@ -0,0 +1,333 @@
+package meditrack.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import meditrack.exception.GlobalExceptionHandler.ApiError;
+import meditrack.model.IdempotencyRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Makes booking POSTs safe to retry. The first request carrying an {@code Idempotency-Key} runs normally
+ * and its response is stored; a retry with the same key and the same request gets that response back
+ * without reaching the controller. Reusing a key for a different request is rejected with 422, and a retry
+ * that arrives while the first attempt is still running gets 409. 5xx outcomes aren't stored, so those
+ * can be retried for real.
+ * <p>
+ * Keys are scoped to the authenticated user or, failing that, the {@code Authorization} credentials when a
+ * request carries either. Anonymous requests share one scope, where the fingerprint check still keeps a key
+ * reused for a different request from replaying someone else's response.
+ */
+@Component
+@ConditionalOnProperty(name = "appointment.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final List<String> IDEMPOTENT_PATHS = List.of(
+            "/api/appointments/create",
+            "/api/appointments/*/reschedule",
+            "/api/appointments/revisit/*",
+            "/api/appointments/*/series");
+    private static final int MAX_KEY_LENGTH = 128;
+    // Framing headers are rewritten by the container for the replayed body, and cookies belong to the first caller
+    private static final Set<String> UNSTORED_HEADERS = Set.of(
+            "content-type", "content-length", "transfer-encoding", "connection", "date", "set-cookie");
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${appointment.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${appointment.idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return IDEMPOTENT_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String headerKey = request.getHeader(HEADER).trim();
+        if (headerKey.isEmpty() || headerKey.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST,
+                    HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        String key = clientScope(request) + "|" + headerKey;
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String fingerprint = fingerprint(request, body);
+
+        if (!claim(key, fingerprint)) {
+            IdempotencyRecord existing = mongoOperations.findById(key, IdempotencyRecord.class);
+            if (existing != null && !fingerprint.equals(existing.getFingerprint())) {
+                writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        HEADER + " was already used for a different request");
+                return;
+            }
+            if (existing != null && existing.getState() == IdempotencyRecord.State.COMPLETED) {
+                replay(existing, response);
+                return;
+            }
+            if (existing == null || !takeOver(existing)) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                writeError(request, response, HttpStatus.CONFLICT,
+                        "A request with this " + HEADER + " is still being processed");
+                return;
+            }
+        }
+
+        // Headers already set by outer filters are theirs to set again on a replay
+        Set<String> outerHeaders = new HashSet<>(response.getHeaderNames());
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+            if (responseWrapper.getStatus() < 500) {
+                store(key, responseWrapper, outerHeaders);
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                // Let the client retry a failed attempt rather than replaying the failure
+                mongoOperations.remove(inProgress(key), IdempotencyRecord.class);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private boolean claim(String key, String fingerprint) {
+        Instant now = Instant.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setFingerprint(fingerprint);
+        record.setState(IdempotencyRecord.State.IN_PROGRESS);
+        record.setCreatedAt(now);
+        record.setExpiresAt(now.plus(Duration.ofHours(ttlHours)));
+        try {
+            mongoOperations.insert(record);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // An attempt that died without finishing would otherwise block its key until the record expires
+    private boolean takeOver(IdempotencyRecord existing) {
+        if (existing.getCreatedAt().isAfter(Instant.now().minusSeconds(inProgressTimeoutSeconds))) {
+            return false;
+        }
+        Query stale = inProgress(existing.getKey()).addCriteria(Criteria.where("createdAt").is(existing.getCreatedAt()));
+        boolean claimed = mongoOperations.updateFirst(stale, Update.update("createdAt", Instant.now()),
+                IdempotencyRecord.class).getModifiedCount() > 0;
+        if (claimed) {
+            logger.warn("Took over stale in-progress idempotency key {}", existing.getKey());
+        }
+        return claimed;
+    }
+
+    private void store(String key, ContentCachingResponseWrapper response, Set<String> outerHeaders) {
+        Update outcome = new Update()
+                .set("state", IdempotencyRecord.State.COMPLETED)
+                .set("responseStatus", response.getStatus())
+                .set("contentType", response.getContentType())
+                .set("responseHeaders", storedHeaders(response, outerHeaders))
+                .set("responseBody", response.getContentAsByteArray());
+        mongoOperations.updateFirst(inProgress(key), outcome, IdempotencyRecord.class);
+    }
+
+    private void replay(IdempotencyRecord record, HttpServletResponse response) throws IOException {
+        logger.debug("Replaying stored response for idempotency key {}", record.getKey());
+        response.setStatus(record.getResponseStatus());
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        if (record.getResponseHeaders() != null) {
+            for (IdempotencyRecord.StoredHeader header : record.getResponseHeaders()) {
+                response.addHeader(header.getName(), header.getValue());
+            }
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (record.getResponseBody() != null) {
+            response.getOutputStream().write(record.getResponseBody());
+        }
+    }
+
+    private static List<IdempotencyRecord.StoredHeader> storedHeaders(HttpServletResponse response,
+                                                                       Set<String> outerHeaders) {
+        List<IdempotencyRecord.StoredHeader> headers = new ArrayList<>();
+        for (String name : new LinkedHashSet<>(response.getHeaderNames())) {
+            if (outerHeaders.contains(name) || UNSTORED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            for (String value : response.getHeaders(name)) {
+                headers.add(new IdempotencyRecord.StoredHeader(name, value));
+            }
+        }
+        return headers;
+    }
+
+    private static String clientScope(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "user:" + principal.getName();
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null) {
+            // Only a digest of the credentials is kept in the key
+            return "auth:" + HexFormat.of().formatHex(sha256().digest(authorization.getBytes(StandardCharsets.UTF_8)));
+        }
+        // Not the remote address: a retry after a network change must still find its key, and clients behind
+        // a proxy would all share one address anyway
+        return "-";
+    }
+
+    private Query inProgress(String key) {
+        return Query.query(Criteria.where("_id").is(key).and("state").is(IdempotencyRecord.State.IN_PROGRESS));
+    }
+
+    private String fingerprint(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ' ');
+        digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+        if (request.getQueryString() != null) {
+            digest.update((byte) '?');
+            digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) '\n');
+        digest.update(body);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiError(status, message, request.getRequestURI()));
+    }
+
+    /**
+     * Serves the body read for fingerprinting to the rest of the chain.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it's all available right away
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            listener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
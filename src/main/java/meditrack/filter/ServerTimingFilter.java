@@ -0,0 +1,61 @@
+package meditrack.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import meditrack.util.StageTimer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds a {@link StageTimer} to each API request and logs requests slower than
+ * {@code appointment.timing.slow-request-ms} with their stage breakdown. The {@code Server-Timing}
+ * header is added by {@link ServerTimingAdvice} just before the body is written, or here for
+ * responses that never went through a controller body.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+@ConditionalOnProperty(name = "appointment.timing.enabled", havingValue = "true")
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String HEADER = "Server-Timing";
+
+    private static final Logger slowRequestLogger = LoggerFactory.getLogger("meditrack.slow-requests");
+
+    @Value("${appointment.timing.slow-request-ms:1000}")
+    private long slowRequestMs;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StageTimer timer = StageTimer.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            StageTimer.end();
+            if (!response.isCommitted() && !response.containsHeader(HEADER)) {
+                response.setHeader(HEADER, timer.toServerTiming());
+            }
+            long elapsed = timer.elapsedMillis();
+            if (elapsed >= slowRequestMs) {
+                slowRequestLogger.warn("slow_request method={} uri={} status={} total_ms={} {}",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(), elapsed,
+                        timer.toLogFields());
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package meditrack.migration;
+
+import meditrack.config.CacheConfig;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * A rewrite of the documents in one collection, run online by {@link MigrationRunner}.
+ * <p>
+ * Migrations see raw documents so they can read fields the entity no longer maps. {@link #pending()} must
+ * stop matching a document once {@link #migrate} has been applied to it: a chunk redone after a crash, or a
+ * later pass over the whole collection, then only touches what is still left.
+ */
+public interface DocumentMigration {
+
+    /**
+     * Stable key of the migration's checkpoint; never reuse one for different logic.
+     */
+    String id();
+
+    String description();
+
+    default String collection() {
+        return "appointments";
+    }
+
+    /**
+     * Documents that still need this migration.
+     */
+    Criteria pending();
+
+    /**
+     * Changes for one document, or null to leave it as it is. The runner applies them only if the document's
+     * version is unchanged since it was read, and increments the version.
+     */
+    Update migrate(Document document);
+
+    /**
+     * Cache holding the collection's documents, evicted for every document the migration rewrites; null for none.
+     */
+    default String cacheName() {
+        return CacheConfig.APPOINTMENTS;
+    }
+
+    /**
+     * Key of the document in {@link #cacheName()}.
+     */
+    default String cacheKey(Document document) {
+        return document.getString("appointmentId");
+    }
+
+    /**
+     * Whether the runner starts this migration by itself when it has never run.
+     */
+    default boolean autoStart() {
+        return false;
+    }
+}
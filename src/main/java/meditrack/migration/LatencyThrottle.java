@@ -0,0 +1,30 @@
+package meditrack.migration;
+
+/**
+ * Pause between waves of chunk writes that follows how long those writes take: it doubles while the slowest
+ * write of a wave is over the target and halves once writes come back under it, so a migration backs off
+ * as soon as the database slows down under live traffic and runs flat out when it doesn't.
+ */
+final class LatencyThrottle {
+
+    private static final long MIN_DELAY_MILLIS = 50;
+
+    private final long targetMillis;
+    private final long maxDelayMillis;
+    private long delayMillis;
+
+    LatencyThrottle(long targetMillis, long maxDelayMillis, long initialDelayMillis) {
+        this.targetMillis = targetMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.delayMillis = Math.min(initialDelayMillis, maxDelayMillis);
+    }
+
+    long onWave(long slowestWriteMillis) {
+        if (slowestWriteMillis > targetMillis) {
+            delayMillis = Math.min(maxDelayMillis, Math.max(MIN_DELAY_MILLIS, delayMillis * 2));
+        } else {
+            delayMillis = delayMillis / 2 < MIN_DELAY_MILLIS ? 0 : delayMillis / 2;
+        }
+        return delayMillis;
+    }
+}
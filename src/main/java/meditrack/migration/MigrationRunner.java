@@ -0,0 +1,392 @@
+package meditrack.migration;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import meditrack.exception.ConflictException;
+import meditrack.exception.ResourceNotFoundException;
+import meditrack.model.MigrationCheckpoint;
+import meditrack.service.CacheInvalidationBus;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@link DocumentMigration}s online, next to live traffic.
+ * <p>
+ * Pending documents are read in {@code _id} order, a wave of up to {@code workers} chunks at a time, and each
+ * chunk is written as one unordered bulk write on its own worker. After every wave the highest {@code _id}
+ * is checkpointed in {@code migration_checkpoints} together with the lease that marks this instance as the
+ * runner, and the pause before the next wave follows the latency of the writes ({@link LatencyThrottle}).
+ * A crashed or stopped instance stops renewing its lease, and once it has run out any instance picks the
+ * migration up again from the checkpoint; chunks written after the last checkpoint are simply redone, which
+ * {@link DocumentMigration#pending()} keeps harmless.
+ */
+@Service
+public class MigrationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    private final String owner = UUID.randomUUID().toString();
+    private final Set<String> active = ConcurrentHashMap.newKeySet();
+    private ExecutorService coordinators;
+    private ExecutorService workerPool;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private List<DocumentMigration> migrations;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${appointment.migration.enabled:true}")
+    private boolean enabled;
+
+    @Value("${appointment.migration.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${appointment.migration.workers:4}")
+    private int workers;
+
+    @Value("${appointment.migration.target-latency-ms:250}")
+    private long targetLatencyMillis;
+
+    @Value("${appointment.migration.max-delay-ms:5000}")
+    private long maxDelayMillis;
+
+    @Value("${appointment.migration.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        coordinators = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "migration-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "migration-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Running migrations keep their RUNNING checkpoint and are resumed elsewhere once the lease runs out
+    @PreDestroy
+    void shutdown() {
+        coordinators.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    public List<MigrationCheckpoint> getStatus() {
+        return migrations.stream().map(migration -> getStatus(migration.id())).collect(Collectors.toList());
+    }
+
+    public MigrationCheckpoint getStatus(String migrationId) {
+        DocumentMigration migration = findMigration(migrationId);
+        MigrationCheckpoint checkpoint = mongoOperations.findById(migrationId, MigrationCheckpoint.class);
+        if (checkpoint == null) {
+            checkpoint = new MigrationCheckpoint();
+            checkpoint.setId(migrationId);
+            checkpoint.setDescription(migration.description());
+            checkpoint.setState(MigrationCheckpoint.State.NOT_STARTED);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Starts or resumes a migration on this instance. A completed migration starts a new pass, which only
+     * visits documents that are pending again.
+     */
+    public MigrationCheckpoint start(String migrationId) {
+        DocumentMigration migration = findMigration(migrationId);
+        if (!active.add(migrationId)) {
+            throw new ConflictException("Migration " + migrationId + " is already running on this instance");
+        }
+        try {
+            MigrationCheckpoint checkpoint = acquire(migration);
+            coordinators.submit(() -> run(migration, checkpoint));
+            return checkpoint;
+        } catch (RuntimeException e) {
+            active.remove(migrationId);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops a running migration at its next checkpoint, on whichever instance is running it.
+     */
+    public MigrationCheckpoint pause(String migrationId) {
+        findMigration(migrationId);
+        MigrationCheckpoint paused = mongoOperations.findAndModify(
+                Query.query(Criteria.where("_id").is(migrationId).and("state").is(MigrationCheckpoint.State.RUNNING)),
+                new Update()
+                        .set("state", MigrationCheckpoint.State.PAUSED)
+                        .set("updatedAt", Instant.now())
+                        .unset("leaseUntil"),
+                FindAndModifyOptions.options().returnNew(true),
+                MigrationCheckpoint.class);
+        if (paused == null) {
+            throw new ConflictException("Migration " + migrationId + " is not running");
+        }
+        return paused;
+    }
+
+    @Scheduled(initialDelayString = "${appointment.migration.resume-initial-delay-ms:30000}",
+            fixedDelayString = "${appointment.migration.resume-interval-ms:60000}")
+    public void resumeAbandoned() {
+        if (!enabled) {
+            return;
+        }
+        for (DocumentMigration migration : migrations) {
+            if (active.contains(migration.id())) {
+                continue;
+            }
+            try {
+                MigrationCheckpoint checkpoint = mongoOperations.findById(migration.id(), MigrationCheckpoint.class);
+                boolean abandoned = checkpoint != null && checkpoint.getState() == MigrationCheckpoint.State.RUNNING
+                        && (checkpoint.getLeaseUntil() == null || checkpoint.getLeaseUntil().isBefore(Instant.now()));
+                if (abandoned || (checkpoint == null && migration.autoStart())) {
+                    start(migration.id());
+                }
+            } catch (ConflictException e) {
+                logger.debug("Migration {} was picked up by another instance", migration.id());
+            } catch (Exception e) {
+                logger.warn("Could not resume migration {}: {}", migration.id(), e.getMessage());
+            }
+        }
+    }
+
+    private DocumentMigration findMigration(String migrationId) {
+        return migrations.stream()
+                .filter(migration -> migration.id().equals(migrationId))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Migration not found with id: " + migrationId));
+    }
+
+    // Takes the lease if nobody holds a live one; an upsert that finds the checkpoint held elsewhere turns
+    // into an insert of the same _id and fails with a duplicate key
+    private MigrationCheckpoint acquire(DocumentMigration migration) {
+        Instant now = Instant.now();
+        MigrationCheckpoint existing = mongoOperations.findById(migration.id(), MigrationCheckpoint.class);
+
+        Update update = new Update()
+                .set("state", MigrationCheckpoint.State.RUNNING)
+                .set("description", migration.description())
+                .set("owner", owner)
+                .set("leaseUntil", now.plusSeconds(leaseSeconds))
+                .set("updatedAt", now)
+                .unset("lastError");
+        if (existing == null || existing.getState() == MigrationCheckpoint.State.COMPLETED) {
+            update.set("startedAt", now)
+                    .set("scanned", 0L)
+                    .set("modified", 0L)
+                    .set("conflicts", 0L)
+                    .set("chunks", 0L)
+                    .set("delayMillis", 0L)
+                    .unset("lastId")
+                    .unset("completedAt");
+        }
+
+        Query available = Query.query(Criteria.where("_id").is(migration.id()).orOperator(
+                Criteria.where("state").ne(MigrationCheckpoint.State.RUNNING),
+                Criteria.where("leaseUntil").lt(now),
+                Criteria.where("owner").is(owner)));
+        try {
+            return mongoOperations.findAndModify(available, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), MigrationCheckpoint.class);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException(String.format("Migration %s is already running on %s",
+                    migration.id(), existing != null ? existing.getOwner() : "another instance"));
+        }
+    }
+
+    private void run(DocumentMigration migration, MigrationCheckpoint checkpoint) {
+        String migrationId = migration.id();
+        LatencyThrottle throttle = new LatencyThrottle(targetLatencyMillis, maxDelayMillis, checkpoint.getDelayMillis());
+        Object lastId = checkpoint.getLastId();
+        logger.info("Migration {} running from {}", migrationId, lastId != null ? lastId : "the start");
+
+        try {
+            while (true) {
+                long waveStart = System.nanoTime();
+                List<List<Document>> wave = readWave(migration, lastId);
+                if (wave.isEmpty()) {
+                    complete(migrationId);
+                    return;
+                }
+
+                List<Future<ChunkResult>> writes = new ArrayList<>(wave.size());
+                for (List<Document> chunk : wave) {
+                    writes.add(workerPool.submit(() -> writeChunk(migration, chunk)));
+                }
+                long scanned = 0;
+                long modified = 0;
+                long conflicts = 0;
+                long slowestWriteMillis = 0;
+                for (Future<ChunkResult> write : writes) {
+                    ChunkResult result = write.get();
+                    scanned += result.scanned();
+                    modified += result.modified();
+                    conflicts += result.conflicts();
+                    slowestWriteMillis = Math.max(slowestWriteMillis, result.writeMillis());
+                }
+
+                List<Document> lastChunk = wave.get(wave.size() - 1);
+                lastId = lastChunk.get(lastChunk.size() - 1).get("_id");
+                long delayMillis = throttle.onWave(slowestWriteMillis);
+                long waveMillis = Duration.ofNanos(System.nanoTime() - waveStart).toMillis();
+                if (!saveProgress(migrationId, lastId, scanned, modified, conflicts, wave.size(), delayMillis, waveMillis)) {
+                    logger.info("Migration {} stopped at {}: paused or taken over", migrationId, lastId);
+                    return;
+                }
+                if (lastChunk.size() < chunkSize) {
+                    complete(migrationId);
+                    return;
+                }
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Migration {} interrupted at {}", migrationId, lastId);
+        } catch (Exception e) {
+            logger.error("Migration {} failed after {}: {}", migrationId, lastId, e.getMessage(), e);
+            fail(migrationId, e);
+        } finally {
+            active.remove(migrationId);
+        }
+    }
+
+    // Chunks are read one after another, each starting after the previous one's last _id
+    private List<List<Document>> readWave(DocumentMigration migration, Object lastId) {
+        List<List<Document>> wave = new ArrayList<>(workers);
+        while (wave.size() < workers) {
+            Criteria criteria = lastId == null ?
+                    migration.pending() :
+                    new Criteria().andOperator(migration.pending(), Criteria.where("_id").gt(lastId));
+            Query query = Query.query(criteria).with(Sort.by("_id")).limit(chunkSize);
+            List<Document> chunk = mongoOperations.find(query, Document.class, migration.collection());
+            if (chunk.isEmpty()) {
+                break;
+            }
+            wave.add(chunk);
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            lastId = chunk.get(chunk.size() - 1).get("_id");
+        }
+        return wave;
+    }
+
+    private ChunkResult writeChunk(DocumentMigration migration, List<Document> chunk) {
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, migration.collection());
+        int planned = 0;
+        List<String> cacheKeys = new ArrayList<>();
+        for (Document document : chunk) {
+            Update changes = migration.migrate(document);
+            if (changes == null) {
+                continue;
+            }
+            String cacheKey = migration.cacheName() != null ? migration.cacheKey(document) : null;
+            if (cacheKey != null) {
+                cacheKeys.add(cacheKey);
+            }
+            // A document written since it was read keeps that write; it is counted as a conflict and
+            // left for the next pass
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))
+                    .and("version").is(document.get("version"))), changes.inc("version", 1));
+            planned++;
+        }
+        if (planned == 0) {
+            return new ChunkResult(chunk.size(), 0, 0, 0);
+        }
+
+        long start = System.nanoTime();
+        int matched = bulk.execute().getMatchedCount();
+        // Whether or not a document was changed by this write, a cached copy may be older than what it read
+        if (!cacheKeys.isEmpty()) {
+            cacheInvalidationBus.publish(migration.cacheName(), cacheKeys);
+        }
+        return new ChunkResult(chunk.size(), matched, planned - matched,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    // Only the lease holder of a still-running migration can move the checkpoint; false means stop
+    private boolean saveProgress(String migrationId, Object lastId, long scanned, long modified, long conflicts,
+                                 int chunks, long delayMillis, long waveMillis) {
+        Instant now = Instant.now();
+        return mongoOperations.updateFirst(heldByUs(migrationId), new Update()
+                        .set("lastId", lastId)
+                        .inc("scanned", scanned)
+                        .inc("modified", modified)
+                        .inc("conflicts", conflicts)
+                        .inc("chunks", chunks)
+                        .set("delayMillis", delayMillis)
+                        .set("lastWaveMillis", waveMillis)
+                        .set("leaseUntil", now.plusSeconds(leaseSeconds))
+                        .set("updatedAt", now),
+                MigrationCheckpoint.class).getMatchedCount() > 0;
+    }
+
+    private void complete(String migrationId) {
+        Instant now = Instant.now();
+        mongoOperations.updateFirst(heldByUs(migrationId), new Update()
+                        .set("state", MigrationCheckpoint.State.COMPLETED)
+                        .set("completedAt", now)
+                        .set("updatedAt", now)
+                        .unset("leaseUntil"),
+                MigrationCheckpoint.class);
+        logger.info("Migration {} completed", migrationId);
+    }
+
+    private void fail(String migrationId, Exception e) {
+        try {
+            mongoOperations.updateFirst(heldByUs(migrationId), new Update()
+                            .set("state", MigrationCheckpoint.State.FAILED)
+                            .set("lastError", e.getMessage())
+                            .set("updatedAt", Instant.now())
+                            .unset("leaseUntil"),
+                    MigrationCheckpoint.class);
+        } catch (Exception ignored) {
+            // The lease runs out and the migration is resumed from its last checkpoint
+        }
+    }
+
+    private Query heldByUs(String migrationId) {
+        return Query.query(Criteria.where("_id").is(migrationId)
+                .and("owner").is(owner)
+                .and("state").is(MigrationCheckpoint.State.RUNNING));
+    }
+
+    private record ChunkResult(long scanned, long modified, long conflicts, long writeMillis) {
+    }
+}
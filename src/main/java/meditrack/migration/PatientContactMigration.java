@@ -0,0 +1,43 @@
+package meditrack.migration;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Folds the duplicated patientAge and patientPhone fields into age and phoneNumber. A value already in the
+ * kept field wins; the duplicate is removed either way.
+ */
+@Component
+public class PatientContactMigration implements DocumentMigration {
+
+    @Override
+    public String id() {
+        return "appointment-patient-contact";
+    }
+
+    @Override
+    public String description() {
+        return "Merge patientAge into age and patientPhone into phoneNumber";
+    }
+
+    @Override
+    public Criteria pending() {
+        return new Criteria().orOperator(
+                Criteria.where("patientAge").exists(true),
+                Criteria.where("patientPhone").exists(true));
+    }
+
+    @Override
+    public Update migrate(Document document) {
+        Update update = new Update().unset("patientAge").unset("patientPhone");
+        if (document.get("age") == null && document.get("patientAge") != null) {
+            update.set("age", document.get("patientAge"));
+        }
+        if (document.get("phoneNumber") == null && document.get("patientPhone") != null) {
+            update.set("phoneNumber", document.get("patientPhone"));
+        }
+        return update;
+    }
+}
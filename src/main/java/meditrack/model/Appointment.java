@@ -6,14 +6,33 @@ import lombok.Getter;
 import lombok.Setter;
 import meditrack.enums.AppointmentStatus;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Getter
 @Setter
 @Document(collection = "appointments")
+@CompoundIndex(name = "doctor_date_idx", def = "{'doctorId': 1, 'appointmentDateTime': 1}")
+@CompoundIndex(name = "patient_date_idx", def = "{'patientId': 1, 'appointmentDateTime': 1}")
+@CompoundIndex(name = "status_date_idx", def = "{'status': 1, 'appointmentDateTime': 1}")
+@CompoundIndex(name = "doctor_buffered_idx", def = "{'doctorId': 1, 'bufferedStart': 1, 'bufferedEnd': 1}")
+@CompoundIndex(name = "patient_span_idx", def = "{'patientId': 1, 'appointmentDateTime': 1, 'endDateTime': 1}")
 public class Appointment {
+
+    // Cold tier for COMPLETED/CANCELLED/NO_SHOW appointments moved out by AppointmentArchiveService
+    public static final String ARCHIVE_COLLECTION = "appointments_archive";
+
+    // Every appointment keeps this much of the doctor's time clear on either side
+    public static final int BUFFER_MINUTES = 30;
+    public static final int MAX_DURATION_MINUTES = 480;
+
     @Id
     private String id;
 
@@ -21,8 +40,12 @@ public class Appointment {
     private String previousAppointmentId;
     private String patientId;
     private String doctorId;
+    @Indexed
     private String appointmentId;
+    @TextIndexed(weight = 3)
     private String patientName;
+    @Indexed
+    private String patientNameKey;  // lower-cased patientName for indexed prefix lookups
     private Integer age;  // ✅ Changed from int to Integer for null safety
     private String phoneNumber;
     private String doctorName;
@@ -30,17 +53,31 @@ public class Appointment {
     private String patientEmail;
     private LocalDateTime appointmentDateTime;
     private Integer duration;
+    // Derived from appointmentDateTime and duration so overlap checks are plain range queries
+    private LocalDateTime endDateTime;
+    private LocalDateTime bufferedStart;
+    private LocalDateTime bufferedEnd;
+    @TextIndexed
     private String reason;
+    @TextIndexed
     private String symptoms;
+    @TextIndexed
     private String additionalNotes;
+    private Boolean emergency;
     private AppointmentStatus status;
     private String cancellationReason;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    // ✅ ADD: Missing fields that are being used in the service
-    private Integer patientAge;  // This is what the service is trying to access
-    private String patientPhone; // This is what the service is trying to access
+    @Version
+    private Long version;
+
+    // Legacy duplicates of age and phoneNumber: still read from documents the appointment-patient-contact
+    // migration hasn't reached, never written
+    @ReadOnlyProperty
+    private Integer patientAge;
+    @ReadOnlyProperty
+    private String patientPhone;
 
     public Appointment() {
         this.createdAt = LocalDateTime.now();
@@ -65,6 +102,29 @@ public class Appointment {
     public String getPatientName() { return patientName; }
     public void setPatientName(String patientName) { this.patientName = patientName; }
 
+    public static String toNameKey(String patientName) {
+        return patientName != null ? patientName.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    /**
+     * Recomputes endDateTime and the buffered bounds from the start and duration, using
+     * {@code defaultDuration} when no duration is set.
+     */
+    public void updateTimeBounds(int defaultDuration) {
+        if (appointmentDateTime == null) {
+            endDateTime = null;
+            bufferedStart = null;
+            bufferedEnd = null;
+            return;
+        }
+        endDateTime = appointmentDateTime.plusMinutes(duration != null ? duration : defaultDuration);
+        bufferedStart = appointmentDateTime.minusMinutes(BUFFER_MINUTES);
+        bufferedEnd = endDateTime.plusMinutes(BUFFER_MINUTES);
+    }
+
+    public String getPatientNameKey() { return patientNameKey; }
+    public void setPatientNameKey(String patientNameKey) { this.patientNameKey = patientNameKey; }
+
     public Integer getAge() { return age; }
     public void setAge(Integer age) { this.age = age; }
 
@@ -97,6 +157,9 @@ public class Appointment {
     public String getAdditionalNotes() { return additionalNotes; }
     public void setAdditionalNotes(String additionalNotes) { this.additionalNotes = additionalNotes; }
 
+    public Boolean getEmergency() { return emergency; }
+    public void setEmergency(Boolean emergency) { this.emergency = emergency; }
+
     public AppointmentStatus getStatus() { return status; }
     public void setStatus(AppointmentStatus status) { this.status = status; }
 
@@ -109,6 +172,9 @@ public class Appointment {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public String getRevisitReason() { return revisitReason; }
     public void setRevisitReason(String revisitReason) { this.revisitReason = revisitReason; }
 
@@ -117,10 +183,10 @@ public class Appointment {
         this.previousAppointmentId = previousAppointmentId;
     }
 
-    // ✅ ADD: Missing getters/setters that the service is trying to use
-    public Integer getPatientAge() { return patientAge; }
-    public void setPatientAge(Integer patientAge) { this.patientAge = patientAge; }
+    // The patient accessors are views of age and phoneNumber
+    public Integer getPatientAge() { return age != null ? age : patientAge; }
+    public void setPatientAge(Integer patientAge) { this.age = patientAge; }
 
-    public String getPatientPhone() { return patientPhone; }
-    public void setPatientPhone(String patientPhone) { this.patientPhone = patientPhone; }
+    public String getPatientPhone() { return phoneNumber != null ? phoneNumber : patientPhone; }
+    public void setPatientPhone(String patientPhone) { this.phoneNumber = patientPhone; }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package meditrack.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published after a write changed one or more appointments, so derived data can follow without the write
+ * path waiting on it. {@code previous} is only set when the booking moved, and is where it was before.
+ */
+public record AppointmentLifecycleEvent(Type type, List<Change> changes) {
+
+    public enum Type {
+        CREATED,
+        CONFIRMED,
+        RESCHEDULED,
+        MOVED,
+        CANCELLED,
+        COMPLETED,
+        NO_SHOW,
+        DELETED
+    }
+
+    public record Slot(String doctorId, String department, LocalDateTime start, int minutes) {
+    }
+
+    public record Change(String appointmentId, Slot slot, Slot previous) {
+    }
+}
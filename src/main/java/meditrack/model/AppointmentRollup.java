@@ -0,0 +1,55 @@
+package meditrack.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appointment counters for one doctor and department over one hour or one day of scheduled time, keyed
+ * {@code H|doctorId|departmentKey|bucketStart} or {@code D|...}. Short of a rebuild, the counters only move
+ * through {@code $inc} upserts from {@link meditrack.service.AppointmentRollupService}; {@code bookedMinutes}
+ * is the net time still booked, so a cancellation or a move takes back what the booking added.
+ * <p>
+ * Compaction folds hour buckets into day buckets. {@code merged} lists the {@code generation} of each hour
+ * bucket a day bucket has taken in, so a fold that is retried is only counted once.
+ */
+@Getter
+@Setter
+@Document(collection = "appointment_rollups")
+@CompoundIndex(name = "doctor_bucket_idx", def = "{'doctorId': 1, 'bucketStart': 1}")
+@CompoundIndex(name = "department_bucket_idx", def = "{'departmentKey': 1, 'bucketStart': 1}")
+@CompoundIndex(name = "granularity_bucket_idx", def = "{'granularity': 1, 'bucketStart': 1}")
+public class AppointmentRollup {
+
+    public enum Granularity {
+        HOUR,
+        DAY
+    }
+
+    @Id
+    private String id;
+    private Granularity granularity;
+    private String doctorId;
+    private String department;
+    private String departmentKey;  // lower-cased department, as reports are looked up case-insensitively
+    private LocalDateTime bucketStart;
+
+    private long created;
+    private long confirmed;
+    private long rescheduled;
+    private long cancelled;
+    private long completed;
+    private long noShow;
+    private long bookedMinutes;
+    private long events;
+
+    private String generation;
+    private List<String> merged;
+    private Instant updatedAt;
+}
@@ -0,0 +1,64 @@
+package meditrack.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One entry on the capped collection used to fan cache evictions out to the other instances.
+ * An empty key list evicts the whole cache.
+ */
+@Document(collection = CacheInvalidationMessage.COLLECTION)
+public class CacheInvalidationMessage {
+
+    public static final String COLLECTION = "cache_invalidations";
+
+    @Id
+    private String id;
+    private String nodeId;
+    private String cacheName;
+    private List<String> keys;
+    private Instant publishedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public void setCacheName(String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(Instant publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+}
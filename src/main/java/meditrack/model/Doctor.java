@@ -19,6 +19,8 @@ public class Doctor {
     private String email;
     private List<String> availableDays;
     private String workingHours;
+    private List<String> breaks; // e.g. "13:00-14:00", taken out of every working day
+    private List<String> scheduleExceptions; // "2025-12-25" for a day off, "2025-12-24 09:00-12:00" for changed hours
 
     // Getters and Setters
     public String getId() {
@@ -104,4 +106,20 @@ public class Doctor {
     public String getDoctorName() {
         return doctorName;
     }
-}
\ No newline at end of file
+
+    public List<String> getBreaks() {
+        return breaks;
+    }
+
+    public void setBreaks(List<String> breaks) {
+        this.breaks = breaks;
+    }
+
+    public List<String> getScheduleExceptions() {
+        return scheduleExceptions;
+    }
+
+    public void setScheduleExceptions(List<String> scheduleExceptions) {
+        this.scheduleExceptions = scheduleExceptions;
+    }
+}
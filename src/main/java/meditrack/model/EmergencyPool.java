@@ -0,0 +1,33 @@
+package meditrack.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Emergency slots claimed from one doctor's day, keyed {@code doctorId:date}. {@code claimed} only moves through
+ * the conditional updates in {@link meditrack.service.EmergencySlotPool}, so it never exceeds the pool size.
+ * Mongo removes the record once {@code expiresAt} has passed.
+ */
+@Getter
+@Setter
+@Document(collection = "emergency_pools")
+public class EmergencyPool {
+
+    @Id
+    private String id;
+    private String doctorId;
+    private LocalDate date;
+    private int claimed;
+    private List<String> appointmentIds;
+    private Instant updatedAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
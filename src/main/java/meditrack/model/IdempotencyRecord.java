@@ -0,0 +1,137 @@
+package meditrack.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key}, keyed by the sending client and that header value.
+ * Mongo removes the record once {@code expiresAt} has passed.
+ */
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+
+    public enum State {
+        IN_PROGRESS,
+        COMPLETED
+    }
+
+    @Id
+    private String key;
+    private String fingerprint;
+    private State state;
+    private int responseStatus;
+    private String contentType;
+    private List<StoredHeader> responseHeaders;
+    private byte[] responseBody;
+    private Instant createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private Instant expiresAt;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public int getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(int responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public List<StoredHeader> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public void setResponseHeaders(List<StoredHeader> responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(byte[] responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    // A list rather than a map, as header names may contain dots, which Mongo field names can't
+    public static class StoredHeader {
+
+        private String name;
+        private String value;
+
+        public StoredHeader() {
+        }
+
+        public StoredHeader(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package meditrack.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Progress of one {@link meditrack.migration.DocumentMigration}, keyed by its id. Every document up to and
+ * including {@code lastId} in {@code _id} order has been processed; the instance named by {@code owner}
+ * holds the run until {@code leaseUntil}, after which any instance may resume it from there.
+ */
+@Getter
+@Setter
+@Document(collection = "migration_checkpoints")
+public class MigrationCheckpoint {
+
+    public enum State {
+        NOT_STARTED,
+        RUNNING,
+        PAUSED,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    private String id;
+    private String description;
+    private State state;
+    private Object lastId;
+    private long scanned;
+    private long modified;
+    private long conflicts;
+    private long chunks;
+    private long delayMillis;
+    private long lastWaveMillis;
+    private String owner;
+    private Instant leaseUntil;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+    private String lastError;
+}
@@ -0,0 +1,286 @@
+package meditrack.monitoring;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Times every Mongo command by the repository method that issued it ({@code mongo.command} timers) and keeps
+ * the most recent slow ones. Slow reads are explained in the background, at most once per method and collection
+ * per {@code explain-interval-seconds}, to show whether they used an index.
+ */
+@Component
+@ConditionalOnProperty(name = "appointment.mongo-monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class MongoCommandMonitor implements CommandListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCommandMonitor.class);
+    private static final String METER = "mongo.command";
+    private static final Set<String> EXPLAINABLE = Set.of("find", "aggregate", "count", "distinct");
+    private static final Set<String> IGNORED = Set.of("hello", "isMaster", "ismaster", "ping", "buildInfo",
+            "saslStart", "saslContinue", "explain", "endSessions", "killCursors");
+    private static final int SUMMARY_LIMIT = 500;
+    private static final BsonString REDACTED = new BsonString("?");
+
+    private final Map<Integer, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Deque<SlowMongoCommand> slowCommands = new ArrayDeque<>();
+    private final Map<String, Long> lastExplainMillis = new ConcurrentHashMap<>();
+    private final ExecutorService explainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mongo-explain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<MongoClient> mongoClient;
+    private final long slowCommandNanos;
+    private final int slowLogSize;
+    private final boolean explainEnabled;
+    private final long explainIntervalMillis;
+
+    public MongoCommandMonitor(MeterRegistry meterRegistry, ObjectProvider<MongoClient> mongoClient,
+                               @Value("${appointment.mongo-monitoring.slow-command-ms:100}") long slowCommandMs,
+                               @Value("${appointment.mongo-monitoring.slow-log-size:100}") int slowLogSize,
+                               @Value("${appointment.mongo-monitoring.explain:true}") boolean explainEnabled,
+                               @Value("${appointment.mongo-monitoring.explain-interval-seconds:60}")
+                               long explainIntervalSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.mongoClient = mongoClient;
+        this.slowCommandNanos = TimeUnit.MILLISECONDS.toNanos(slowCommandMs);
+        this.slowLogSize = slowLogSize;
+        this.explainEnabled = explainEnabled;
+        this.explainIntervalMillis = TimeUnit.SECONDS.toMillis(explainIntervalSeconds);
+    }
+
+    private record InFlight(String repositoryMethod, String database, String collection, BsonDocument command) {
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        String name = event.getCommandName();
+        if (IGNORED.contains(name)) {
+            return;
+        }
+        // getMore names its cursor's collection in a separate field, its own value is the cursor id
+        BsonValue target = event.getCommand().get("getMore".equals(name) ? "collection" : name);
+        String collection = target != null && target.isString() ? target.asString().getValue() : "-";
+        // The event's document is only valid during the callback, so keep a copy of anything we may explain
+        BsonDocument command = explainEnabled && EXPLAINABLE.contains(name) ? event.getCommand().clone() : null;
+        inFlight.put(event.getRequestId(), new InFlight(
+                RepositoryMethodLabel.current(), event.getDatabaseName(), collection, command));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failure");
+    }
+
+    private void complete(int requestId, String name, long elapsedNanos, String outcome) {
+        InFlight started = inFlight.remove(requestId);
+        if (started == null) {
+            return;
+        }
+
+        Timer.builder(METER)
+                .tag("method", started.repositoryMethod())
+                .tag("command", name)
+                .tag("collection", started.collection())
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowCommandNanos) {
+            recordSlow(started, name, elapsedNanos);
+        }
+    }
+
+    private void recordSlow(InFlight started, String name, long elapsedNanos) {
+        String summary = started.command() != null ? summarize(name, started.command()) : name;
+        SlowMongoCommand slow = new SlowMongoCommand(Instant.now(), started.repositoryMethod(), name,
+                started.collection(), elapsedNanos / 1_000_000.0, summary);
+        synchronized (slowCommands) {
+            if (slowCommands.size() >= slowLogSize) {
+                slowCommands.removeLast();
+            }
+            slowCommands.addFirst(slow);
+        }
+        logger.warn("Slow Mongo command: method={} command={} collection={} duration_ms={} {}",
+                slow.getRepositoryMethod(), name, slow.getCollection(), String.format("%.1f", slow.getDurationMs()),
+                summary);
+
+        if (started.command() != null && shouldExplain(started.repositoryMethod() + "|" + started.collection())) {
+            explainExecutor.execute(() -> explain(started, slow));
+        }
+    }
+
+    private boolean shouldExplain(String key) {
+        long now = System.currentTimeMillis();
+        Long previous = lastExplainMillis.get(key);
+        if (previous != null && now - previous < explainIntervalMillis) {
+            return false;
+        }
+        return previous == null ?
+                lastExplainMillis.putIfAbsent(key, now) == null :
+                lastExplainMillis.replace(key, previous, now);
+    }
+
+    private void explain(InFlight started, SlowMongoCommand slow) {
+        try {
+            BsonDocument command = started.command().clone();
+            // Session, cluster time and read preference fields aren't accepted inside explain
+            command.keySet().removeIf(key -> key.startsWith("$") || key.equals("lsid") || key.equals("txnNumber"));
+            BsonDocument explain = new BsonDocument("explain", command)
+                    .append("verbosity", new BsonString("queryPlanner"));
+
+            Document result = mongoClient.getObject().getDatabase(started.database()).runCommand(explain);
+            slow.setPlan(describePlan(result));
+            logger.warn("Plan for slow {} from {}: {}", slow.getCommand(), slow.getRepositoryMethod(), slow.getPlan());
+        } catch (Exception e) {
+            slow.setPlan("explain failed: " + e.getMessage());
+            logger.debug("Explain failed for {}: {}", slow.getRepositoryMethod(), e.getMessage());
+        }
+    }
+
+    // Lists the scans in the winning plan, e.g. "IXSCAN doctor_date_idx" or "COLLSCAN"
+    private static String describePlan(Document explainResult) {
+        Document winningPlan = findDocument(explainResult, "winningPlan");
+        if (winningPlan == null) {
+            return "unknown";
+        }
+        Set<String> scans = new LinkedHashSet<>();
+        collectScans(winningPlan, scans);
+        return scans.isEmpty() ? String.valueOf(winningPlan.get("stage")) : String.join(", ", scans);
+    }
+
+    private static void collectScans(Object node, Set<String> scans) {
+        if (node instanceof Document document) {
+            Object stage = document.get("stage");
+            if ("IXSCAN".equals(stage) || "COUNT_SCAN".equals(stage) || "DISTINCT_SCAN".equals(stage)) {
+                scans.add(stage + " " + document.get("indexName"));
+            } else if ("COLLSCAN".equals(stage)) {
+                scans.add("COLLSCAN");
+            }
+            document.values().forEach(child -> collectScans(child, scans));
+        } else if (node instanceof List<?> list) {
+            list.forEach(child -> collectScans(child, scans));
+        }
+    }
+
+    // Aggregations nest the planner output under their first stage, so search for it
+    private static Document findDocument(Object node, String key) {
+        if (node instanceof Document document) {
+            if (document.get(key) instanceof Document found) {
+                return found;
+            }
+            for (Object child : document.values()) {
+                Document found = findDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object child : list) {
+                Document found = findDocument(child, key);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Keeps the shape of the command, field names and operators, but none of the values, which may be patient data
+    private static String summarize(String name, BsonDocument command) {
+        BsonDocument summary = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (key.equals(name)) {
+                summary.append(key, value);
+            } else if (!key.startsWith("$") && !key.equals("lsid")) {
+                summary.append(key, redact(value));
+            }
+        });
+        String json = summary.toJson();
+        return json.length() > SUMMARY_LIMIT ? json.substring(0, SUMMARY_LIMIT) + "..." : json;
+    }
+
+    private static BsonValue redact(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument redacted = new BsonDocument();
+            value.asDocument().forEach((key, child) -> redacted.append(key, redact(child)));
+            return redacted;
+        }
+        if (value.isArray()) {
+            // Pipelines and $and/$or keep their structure; lists of plain values like $in collapse to one marker
+            BsonArray redacted = new BsonArray();
+            for (BsonValue child : value.asArray()) {
+                if (child.isDocument() || child.isArray()) {
+                    redacted.add(redact(child));
+                }
+            }
+            return redacted.isEmpty() ? REDACTED : redacted;
+        }
+        return REDACTED;
+    }
+
+    public List<SlowMongoCommand> getSlowCommands() {
+        synchronized (slowCommands) {
+            return new ArrayList<>(slowCommands);
+        }
+    }
+
+    public List<MongoCommandStats> getCommandStats() {
+        return meterRegistry.find(METER).timers().stream()
+                .map(timer -> {
+                    Map<String, Double> percentiles = new LinkedHashMap<>();
+                    for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                        percentiles.put("p" + Math.round(value.percentile() * 100), value.value(TimeUnit.MILLISECONDS));
+                    }
+                    return new MongoCommandStats(
+                            timer.getId().getTag("method"),
+                            timer.getId().getTag("command"),
+                            timer.getId().getTag("collection"),
+                            timer.getId().getTag("outcome"),
+                            timer.count(),
+                            timer.mean(TimeUnit.MILLISECONDS),
+                            timer.max(TimeUnit.MILLISECONDS),
+                            percentiles);
+                })
+                .sorted(Comparator.comparingDouble(MongoCommandStats::meanMs).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package meditrack.monitoring;
+
+import java.util.Map;
+
+/**
+ * Latency summary of one (repository method, command, collection, outcome) combination since startup.
+ */
+public record MongoCommandStats(String repositoryMethod, String command, String collection, String outcome,
+                                long count, double meanMs, double maxMs, Map<String, Double> percentilesMs) {
+}
@@ -0,0 +1,53 @@
+package meditrack.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Remembers which repository method the current thread is executing, e.g.
+ * {@code AppointmentRepository.findByPatientIdAndStatus}, so Mongo commands can be attributed to it.
+ */
+public final class RepositoryMethodLabel {
+
+    public static final String NONE = "none";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodLabel() {
+    }
+
+    public static String current() {
+        String label = CURRENT.get();
+        return label != null ? label : NONE;
+    }
+
+    public static MethodInterceptor interceptorFor(Class<?> repositoryInterface) {
+        return new Interceptor(repositoryInterface);
+    }
+
+    /**
+     * Added to every repository proxy. The outermost repository call wins, so a custom fragment
+     * method that calls another repository method keeps its own label.
+     */
+    private static final class Interceptor implements MethodInterceptor {
+
+        private final String repositoryName;
+
+        Interceptor(Class<?> repositoryInterface) {
+            this.repositoryName = repositoryInterface.getSimpleName();
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (CURRENT.get() != null) {
+                return invocation.proceed();
+            }
+            CURRENT.set(repositoryName + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package meditrack.monitoring;
+
+import java.time.Instant;
+
+/**
+ * A Mongo command that took longer than {@code appointment.mongo-monitoring.slow-command-ms}.
+ * {@code plan} is filled in once the background explain finishes, e.g. "IXSCAN doctor_date_idx" or "COLLSCAN".
+ */
+public class SlowMongoCommand {
+
+    private final Instant timestamp;
+    private final String repositoryMethod;
+    private final String command;
+    private final String collection;
+    private final double durationMs;
+    private final String commandSummary;
+    private volatile String plan;
+
+    SlowMongoCommand(Instant timestamp, String repositoryMethod, String command, String collection,
+                     double durationMs, String commandSummary) {
+        this.timestamp = timestamp;
+        this.repositoryMethod = repositoryMethod;
+        this.command = command;
+        this.collection = collection;
+        this.durationMs = durationMs;
+        this.commandSummary = commandSummary;
+    }
+
+    public Instant getTimestamp() { return timestamp; }
+    public String getRepositoryMethod() { return repositoryMethod; }
+    public String getCommand() { return command; }
+    public String getCollection() { return collection; }
+    public double getDurationMs() { return durationMs; }
+    public String getCommandSummary() { return commandSummary; }
+    public String getPlan() { return plan; }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
@@ -6,14 +6,17 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AppointmentRepository extends MongoRepository<Appointment, String> {
+public interface AppointmentRepository extends MongoRepository<Appointment, String>, AppointmentRepositoryCustom {
 
     Optional<Appointment> findByAppointmentId(String appointmentId);
 
+    List<Appointment> findByAppointmentIdIn(Collection<String> appointmentIds);
+
     @Query("{ 'patientId' : ?0 }")
     List<Appointment> findByPatientId(String patientId);
 
@@ -51,12 +54,6 @@ public interface AppointmentRepository extends MongoRepository<Appointment, Stri
 
     void deleteByAppointmentId(String appointmentId);
 
-    @Query("{ 'patientId': ?0, 'doctorId': ?1, " +
-            "'appointmentDateTime': { $lt: ?3 }, " +
-            "$expr: { $gt: [{ $add: ['$appointmentDateTime', { $multiply: ['$duration', 60000] }] }, ?2] } }")
-    Boolean existsOverlappingAppointment(String patientId, String doctorId,
-                                         LocalDateTime requestedStart, LocalDateTime requestedEnd);
-
     boolean existsByPatientIdAndDoctorIdAndAppointmentDateTime(String patientId,
                                                                String doctorId,
                                                                LocalDateTime appointmentDateTime);
@@ -65,4 +62,12 @@ public interface AppointmentRepository extends MongoRepository<Appointment, Stri
     List<Appointment> findByStatusAndAppointmentDateTimeBetween(String status, LocalDateTime start, LocalDateTime end);
 
     List<Appointment> findByAppointmentDateTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    // One batched read of every doctor's bookings in a window, ordered for per-doctor merging
+    @Query(value = "{ 'doctorId' : { $in: ?0 }, 'appointmentDateTime' : { $gte: ?1, $lt: ?2 }, 'status' : { $ne: 'CANCELLED' } }",
+            sort = "{ 'doctorId' : 1, 'appointmentDateTime' : 1 }")
+    List<Appointment> findActiveByDoctorIdsBetween(Collection<String> doctorIds, LocalDateTime start, LocalDateTime end);
+
+    @Query("{ 'patientId' : { $in: ?0 }, 'appointmentDateTime' : { $gte: ?1, $lt: ?2 }, 'status' : { $ne: 'CANCELLED' } }")
+    List<Appointment> findActiveByPatientIdsBetween(Collection<String> patientIds, LocalDateTime start, LocalDateTime end);
 }
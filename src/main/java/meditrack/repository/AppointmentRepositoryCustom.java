@@ -0,0 +1,71 @@
+package meditrack.repository;
+
+import meditrack.dto.AppointmentSearchSpec;
+import meditrack.enums.AppointmentStatus;
+import meditrack.model.Appointment;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Single round-trip conditional writes that {@link AppointmentRepository} derived queries can't express.
+ */
+public interface AppointmentRepositoryCustom {
+
+    /**
+     * Atomically moves an appointment into {@code target} if its current status allows it,
+     * applying {@code changes} in the same findAndModify. Empty if nothing matched.
+     */
+    Optional<Appointment> transitionStatus(String appointmentId, AppointmentStatus target, Update changes);
+
+    /**
+     * Applies {@code changes} only if the stored version still equals {@code expectedVersion}.
+     * Empty if the appointment is missing or was modified concurrently.
+     */
+    Optional<Appointment> updateIfVersion(String appointmentId, Long expectedVersion, Update changes);
+
+    /**
+     * Applies each update only if its appointment still has the expected version, as one unordered bulk write.
+     * Returns how many matched.
+     */
+    int updateAllIfVersion(List<VersionedUpdate> updates);
+
+    /**
+     * Active appointments that clash with booking {@code patientId} with {@code doctorId} over {@code [start, end)}:
+     * the doctor's bookings whose buffered interval overlaps it, and the patient's bookings with any doctor that
+     * overlap it directly. One $or query, each branch a range scan on its own index, ordered by buffered start.
+     * With a null {@code patientId} only the doctor side is checked.
+     */
+    List<Appointment> findBookingConflicts(String doctorId, String patientId, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Minutes of active appointments the doctor has starting in {@code [from, to)}, leaving out
+     * {@code excludeAppointmentId} when given. One $group aggregation over stored end times.
+     */
+    long bookedMinutes(String doctorId, LocalDateTime from, LocalDateTime to, String excludeAppointmentId);
+
+    /**
+     * Runs {@code criteria} against the archive collection of terminal appointments.
+     */
+    List<Appointment> findArchived(Criteria criteria);
+
+    long countArchived(Criteria criteria);
+
+    /**
+     * Translates {@code spec} into one Mongo query with an index hint matching its most selective field.
+     * With {@code includeCounts} the page, total and per-status/department counts come back from a
+     * single $facet aggregation; otherwise the total is a separate count.
+     */
+    SearchPage search(AppointmentSearchSpec spec);
+
+    record VersionedUpdate(String appointmentId, Long expectedVersion, Update changes) {
+    }
+
+    record SearchPage(List<Appointment> content, long total,
+                      Map<String, Long> countsByStatus, Map<String, Long> countsByDepartment) {
+    }
+}
@@ -0,0 +1,293 @@
+package meditrack.repository;
+
+import meditrack.dto.AppointmentSearchSpec;
+import meditrack.enums.AppointmentStatus;
+import meditrack.model.Appointment;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+public class AppointmentRepositoryCustomImpl implements AppointmentRepositoryCustom {
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Override
+    public Optional<Appointment> transitionStatus(String appointmentId, AppointmentStatus target, Update changes) {
+        Query query = Query.query(Criteria.where("appointmentId").is(appointmentId)
+                .and("status").in(transitionSources(target)));
+
+        changes.set("status", target);
+        return findAndModify(query, changes);
+    }
+
+    @Override
+    public int updateAllIfVersion(List<VersionedUpdate> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Appointment.class);
+        for (VersionedUpdate update : updates) {
+            bulk.updateOne(Query.query(Criteria.where("appointmentId").is(update.appointmentId())
+                    .and("version").is(update.expectedVersion())), stamp(update.changes()));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+
+    // Legacy documents without a status are still allowed to move, as they were before transitions were checked
+    private static List<String> transitionSources(AppointmentStatus target) {
+        List<String> sources = new ArrayList<>();
+        target.allowedSources().forEach(status -> sources.add(status.name()));
+        sources.add(null);
+        return sources;
+    }
+
+    @Override
+    public Optional<Appointment> updateIfVersion(String appointmentId, Long expectedVersion, Update changes) {
+        Query query = Query.query(Criteria.where("appointmentId").is(appointmentId)
+                .and("version").is(expectedVersion));
+        return findAndModify(query, changes);
+    }
+
+    @Override
+    public List<Appointment> findBookingConflicts(String doctorId, String patientId,
+                                                  LocalDateTime start, LocalDateTime end) {
+        // No booking is longer than MAX_DURATION_MINUTES, so a lower bound on the start keeps each index scan
+        // to the window instead of the doctor's or patient's whole history
+        Criteria doctorSide = Criteria.where("doctorId").is(doctorId)
+                .and("bufferedStart").gt(start.minusMinutes(
+                        Appointment.MAX_DURATION_MINUTES + 2L * Appointment.BUFFER_MINUTES)).lt(end)
+                .and("bufferedEnd").gt(start);
+        Criteria clash = patientId == null ? doctorSide : new Criteria().orOperator(doctorSide,
+                Criteria.where("patientId").is(patientId)
+                        .and("appointmentDateTime").gt(start.minusMinutes(Appointment.MAX_DURATION_MINUTES)).lt(end)
+                        .and("endDateTime").gt(start));
+
+        Query query = Query.query(clash)
+                .addCriteria(Criteria.where("status").ne(AppointmentStatus.CANCELLED.name()))
+                .with(Sort.by("bufferedStart"));
+        return mongoOperations.find(query, Appointment.class);
+    }
+
+    @Override
+    public long bookedMinutes(String doctorId, LocalDateTime from, LocalDateTime to, String excludeAppointmentId) {
+        Criteria criteria = Criteria.where("doctorId").is(doctorId)
+                .and("appointmentDateTime").gte(from).lt(to)
+                .and("status").ne(AppointmentStatus.CANCELLED.name());
+        if (excludeAppointmentId != null) {
+            criteria = criteria.and("appointmentId").ne(excludeAppointmentId);
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.group().sum(ArithmeticOperators.valueOf("endDateTime").subtract("appointmentDateTime"))
+                        .as("millis"));
+
+        Document result = mongoOperations.aggregate(aggregation, Appointment.class, Document.class).getUniqueMappedResult();
+        return result != null && result.get("millis") instanceof Number millis ? millis.longValue() / 60_000L : 0;
+    }
+
+    @Override
+    public List<Appointment> findArchived(Criteria criteria) {
+        return mongoOperations.find(Query.query(criteria), Appointment.class, Appointment.ARCHIVE_COLLECTION);
+    }
+
+    @Override
+    public long countArchived(Criteria criteria) {
+        return mongoOperations.count(Query.query(criteria), Appointment.class, Appointment.ARCHIVE_COLLECTION);
+    }
+
+    @Override
+    public SearchPage search(AppointmentSearchSpec spec) {
+        boolean hasText = spec.getText() != null && !spec.getText().isBlank();
+        List<CriteriaDefinition> filters = buildFilters(spec);
+        String hint = hasText ? null : chooseIndexHint(spec);
+        long skip = (long) spec.getPage() * spec.getSize();
+
+        if (spec.isIncludeCounts()) {
+            return searchWithFacets(spec, filters, hasText, hint, skip);
+        }
+
+        Query query = hasText ?
+                TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(spec.getText())) :
+                new Query();
+        filters.forEach(query::addCriteria);
+        if (hint != null) {
+            query.withHint(hint);
+        }
+
+        long total = mongoOperations.count(query, Appointment.class);
+        if (total == 0) {
+            return new SearchPage(List.of(), 0, null, null);
+        }
+
+        Sort sort = resolveSort(spec, hasText);
+        if (sort == null) {
+            ((TextQuery) query).sortByScore();
+        } else {
+            query.with(sort);
+        }
+        query.skip(skip).limit(spec.getSize());
+        return new SearchPage(mongoOperations.find(query, Appointment.class), total, null, null);
+    }
+
+    private SearchPage searchWithFacets(AppointmentSearchSpec spec, List<CriteriaDefinition> filters,
+                                        boolean hasText, String hint, long skip) {
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        // $text must be the first stage of the pipeline
+        if (hasText) {
+            pipeline.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(spec.getText())));
+        }
+        for (CriteriaDefinition filter : filters) {
+            pipeline.add(Aggregation.match(filter));
+        }
+
+        Sort sort = resolveSort(spec, hasText);
+        AggregationOperation sortStage = sort == null ?
+                Aggregation.stage("{ $sort: { score: { $meta: 'textScore' } } }") :
+                Aggregation.sort(sort);
+
+        pipeline.add(Aggregation.facet(sortStage, Aggregation.skip(skip), Aggregation.limit(spec.getSize()))
+                .as("results")
+                .and(Aggregation.count().as("total")).as("total")
+                .and(Aggregation.group("status").count().as("count")).as("byStatus")
+                .and(Aggregation.group("department").count().as("count")).as("byDepartment"));
+
+        AggregationOptions.Builder options = AggregationOptions.builder();
+        if (hint != null) {
+            options.hint(hint);
+        }
+
+        Document facets = mongoOperations.aggregate(
+                Aggregation.newAggregation(Appointment.class, pipeline).withOptions(options.build()),
+                Document.class
+        ).getUniqueMappedResult();
+        if (facets == null) {
+            return new SearchPage(List.of(), 0, Map.of(), Map.of());
+        }
+
+        List<Appointment> content = facets.getList("results", Document.class).stream()
+                .map(document -> mongoOperations.getConverter().read(Appointment.class, document))
+                .toList();
+        List<Document> totals = facets.getList("total", Document.class);
+        long total = totals.isEmpty() ? 0 : totals.get(0).get("total", Number.class).longValue();
+
+        return new SearchPage(content, total,
+                toCounts(facets.getList("byStatus", Document.class)),
+                toCounts(facets.getList("byDepartment", Document.class)));
+    }
+
+    private List<CriteriaDefinition> buildFilters(AppointmentSearchSpec spec) {
+        List<CriteriaDefinition> filters = new ArrayList<>();
+        if (spec.getStatus() != null && !spec.getStatus().isEmpty()) {
+            filters.add(Criteria.where("status").in(spec.getStatus().stream()
+                    .map(status -> status.trim().toUpperCase(Locale.ROOT))
+                    .toList()));
+        }
+        if (spec.getDoctorId() != null && !spec.getDoctorId().isBlank()) {
+            filters.add(Criteria.where("doctorId").is(spec.getDoctorId()));
+        }
+        if (spec.getPatientId() != null && !spec.getPatientId().isBlank()) {
+            filters.add(Criteria.where("patientId").is(spec.getPatientId()));
+        }
+        if (spec.getDepartment() != null && !spec.getDepartment().isBlank()) {
+            filters.add(Criteria.where("department").is(spec.getDepartment()));
+        }
+        if (spec.getEmergency() != null) {
+            // Legacy documents have no flag at all and count as non-emergency
+            filters.add(spec.getEmergency() ?
+                    Criteria.where("emergency").is(true) :
+                    Criteria.where("emergency").ne(true));
+        }
+        if (spec.getStartDate() != null || spec.getEndDate() != null) {
+            Criteria range = Criteria.where("appointmentDateTime");
+            if (spec.getStartDate() != null) {
+                range.gte(spec.getStartDate().atStartOfDay());
+            }
+            if (spec.getEndDate() != null) {
+                range.lt(spec.getEndDate().plusDays(1).atStartOfDay());
+            }
+            filters.add(range);
+        }
+        if (spec.getName() != null && !spec.getName().isBlank()) {
+            // Anchored, case-sensitive regex on the lower-cased key so Mongo can bound the index scan
+            filters.add(Criteria.where("patientNameKey")
+                    .regex("^" + escapeRegex(Appointment.toNameKey(spec.getName()))));
+        }
+        return filters;
+    }
+
+    // Indexes declared on Appointment; equality fields first, most selective first
+    private String chooseIndexHint(AppointmentSearchSpec spec) {
+        if (spec.getDoctorId() != null && !spec.getDoctorId().isBlank()) {
+            return "doctor_date_idx";
+        }
+        if (spec.getPatientId() != null && !spec.getPatientId().isBlank()) {
+            return "patient_date_idx";
+        }
+        if (spec.getStatus() != null && !spec.getStatus().isEmpty()) {
+            return "status_date_idx";
+        }
+        return null;
+    }
+
+    // null means "by text relevance"
+    private Sort resolveSort(AppointmentSearchSpec spec, boolean hasText) {
+        if (spec.getSortBy() == null || spec.getSortBy().isBlank()) {
+            return hasText ? null : Sort.by(Sort.Direction.ASC, "appointmentDateTime");
+        }
+        Sort.Direction direction = "desc".equalsIgnoreCase(spec.getDirection()) ?
+                Sort.Direction.DESC : Sort.Direction.ASC;
+        return Sort.by(direction, spec.getSortBy());
+    }
+
+    private Map<String, Long> toCounts(List<Document> groups) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document group : groups) {
+            Object key = group.get("_id");
+            counts.put(key != null ? key.toString() : "UNKNOWN", group.get("count", Number.class).longValue());
+        }
+        return counts;
+    }
+
+    private static String escapeRegex(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if ("\\.[]{}()<>*+-=!?^$|".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private Optional<Appointment> findAndModify(Query query, Update changes) {
+        return Optional.ofNullable(mongoOperations.findAndModify(
+                query, stamp(changes), FindAndModifyOptions.options().returnNew(true), Appointment.class));
+    }
+
+    // Conditional writes bypass save(), so they maintain updatedAt and the @Version field themselves
+    private static Update stamp(Update changes) {
+        return changes.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+    }
+}
@@ -0,0 +1,108 @@
+package meditrack.service;
+
+import meditrack.config.CacheConfig;
+import meditrack.enums.AppointmentStatus;
+import meditrack.model.Appointment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves COMPLETED, CANCELLED and NO_SHOW appointments older than {@code appointment.archive.after-days}
+ * from the hot collection into {@link Appointment#ARCHIVE_COLLECTION}.
+ *
+ * Each batch is copied with upserts and then removed from the hot collection only if its version
+ * is unchanged, so a crash between the two steps is repaired by simply running again.
+ */
+@Service
+public class AppointmentArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentArchiveService.class);
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${appointment.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${appointment.archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${appointment.archive.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(initialDelayString = "${appointment.archive.initial-delay-ms:300000}",
+            fixedDelayString = "${appointment.archive.interval-ms:3600000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archiveTerminalAppointments();
+        } catch (Exception e) {
+            logger.error("Appointment archival run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public long archiveTerminalAppointments() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        Query batchQuery = Query.query(Criteria.where("status")
+                        .in(AppointmentStatus.COMPLETED.name(), AppointmentStatus.CANCELLED.name(),
+                                AppointmentStatus.NO_SHOW.name())
+                        .and("appointmentDateTime").lt(cutoff))
+                .with(Sort.by("_id"))
+                .limit(batchSize);
+
+        long archived = 0;
+        List<Appointment> batch;
+        do {
+            batch = mongoOperations.find(batchQuery, Appointment.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+            archived += archiveBatch(batch);
+        } while (batch.size() == batchSize);
+
+        if (archived > 0) {
+            logger.info("Archived {} appointments older than {}", archived, cutoff.toLocalDate());
+        }
+        return archived;
+    }
+
+    private long archiveBatch(List<Appointment> batch) {
+        BulkOperations copy = mongoOperations.bulkOps(
+                BulkOperations.BulkMode.UNORDERED, Appointment.class, Appointment.ARCHIVE_COLLECTION);
+        BulkOperations remove = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, Appointment.class);
+
+        for (Appointment appointment : batch) {
+            Query byId = Query.query(Criteria.where("_id").is(appointment.getId()));
+            copy.replaceOne(byId, appointment, FindAndReplaceOptions.options().upsert());
+            // Anything edited after we read it stays hot and is picked up again next run
+            remove.remove(Query.query(Criteria.where("_id").is(appointment.getId())
+                    .and("version").is(appointment.getVersion())));
+        }
+
+        copy.execute();
+        long removed = remove.execute().getDeletedCount();
+        // Archived appointments are no longer served from the hot collection
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENTS,
+                batch.stream().map(Appointment::getAppointmentId).collect(Collectors.toList()));
+        return removed;
+    }
+}
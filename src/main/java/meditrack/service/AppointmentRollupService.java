@@ -0,0 +1,426 @@
+package meditrack.service;
+
+import com.mongodb.client.result.DeleteResult;
+import meditrack.dto.UtilizationReport;
+import meditrack.enums.AppointmentStatus;
+import meditrack.exception.ResourceNotFoundException;
+import meditrack.exception.ValidationException;
+import meditrack.model.Appointment;
+import meditrack.model.AppointmentLifecycleEvent;
+import meditrack.model.AppointmentRollup;
+import meditrack.model.AppointmentRollup.Granularity;
+import meditrack.model.Doctor;
+import meditrack.repository.DoctorRepository;
+import meditrack.util.DoctorSchedule;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link AppointmentRollup} counters per doctor, department and hour of scheduled time current from
+ * {@link AppointmentLifecycleEvent}s, so utilization reports read a few hundred buckets instead of every
+ * appointment in the month.
+ * <p>
+ * Each event becomes one unordered bulk of {@code $inc} upserts, one per bucket it touches. Hour buckets older
+ * than {@code appointment.analytics.compact-after-days} are folded into day buckets by a scheduled compaction,
+ * and events for appointments older than that go to the day bucket directly. An appointment counts entirely
+ * towards the hour it starts in.
+ */
+@Service
+public class AppointmentRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentRollupService.class);
+    private static final DateTimeFormatter HOUR_KEY = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    // Leaves time for events already in flight when an hour crosses the cutoff to land before it's folded
+    private static final int COMPACT_GRACE_HOURS = 1;
+    private static final int COMPACT_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private DoctorScheduleService doctorScheduleService;
+
+    @Value("${appointment.default-duration:30}")
+    private int defaultDuration;
+
+    @Value("${appointment.analytics.compact-after-days:7}")
+    private int compactAfterDays;
+
+    @Async
+    @EventListener
+    public void onLifecycleEvent(AppointmentLifecycleEvent event) {
+        try {
+            apply(event);
+        } catch (Exception e) {
+            logger.error("Failed to roll up {} event for {} appointments: {}",
+                    event.type(), event.changes().size(), e.getMessage(), e);
+        }
+    }
+
+    private void apply(AppointmentLifecycleEvent event) {
+        LocalDateTime cutoff = compactionCutoff();
+        Map<String, AppointmentRollup> buckets = new LinkedHashMap<>();
+        for (AppointmentLifecycleEvent.Change change : event.changes()) {
+            AppointmentLifecycleEvent.Slot slot = change.slot();
+            if (slot == null || slot.doctorId() == null || slot.start() == null) {
+                continue;
+            }
+            AppointmentRollup bucket = bucketFor(buckets, slot.doctorId(), slot.department(), slot.start(), cutoff);
+            bucket.setEvents(bucket.getEvents() + 1);
+            switch (event.type()) {
+                case CREATED -> {
+                    bucket.setCreated(bucket.getCreated() + 1);
+                    bucket.setBookedMinutes(bucket.getBookedMinutes() + slot.minutes());
+                }
+                case CONFIRMED -> bucket.setConfirmed(bucket.getConfirmed() + 1);
+                case COMPLETED -> bucket.setCompleted(bucket.getCompleted() + 1);
+                case NO_SHOW -> bucket.setNoShow(bucket.getNoShow() + 1);
+                case CANCELLED -> {
+                    bucket.setCancelled(bucket.getCancelled() + 1);
+                    bucket.setBookedMinutes(bucket.getBookedMinutes() - slot.minutes());
+                }
+                case DELETED -> bucket.setBookedMinutes(bucket.getBookedMinutes() - slot.minutes());
+                case RESCHEDULED, MOVED -> {
+                    if (event.type() == AppointmentLifecycleEvent.Type.RESCHEDULED) {
+                        bucket.setRescheduled(bucket.getRescheduled() + 1);
+                    }
+                    bucket.setBookedMinutes(bucket.getBookedMinutes() + slot.minutes());
+                    AppointmentLifecycleEvent.Slot previous = change.previous();
+                    if (previous != null && previous.doctorId() != null && previous.start() != null) {
+                        AppointmentRollup from = bucketFor(buckets, previous.doctorId(), previous.department(),
+                                previous.start(), cutoff);
+                        from.setEvents(from.getEvents() + 1);
+                        from.setBookedMinutes(from.getBookedMinutes() - previous.minutes());
+                    }
+                }
+            }
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        BulkOperations bulk = mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, AppointmentRollup.class);
+        for (AppointmentRollup bucket : buckets.values()) {
+            bulk.upsert(Query.query(Criteria.where("_id").is(bucket.getId())), insertDefaults(counters(bucket, 1), bucket)
+                    .set("updatedAt", now));
+        }
+        bulk.execute();
+    }
+
+    @Scheduled(initialDelayString = "${appointment.analytics.compact-interval-ms:3600000}",
+            fixedDelayString = "${appointment.analytics.compact-interval-ms:3600000}")
+    public void compactScheduled() {
+        try {
+            long folded = compact();
+            if (folded > 0) {
+                logger.info("Folded {} hourly appointment rollups into daily ones", folded);
+            }
+        } catch (Exception e) {
+            logger.error("Appointment rollup compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Folds every hour bucket past the cutoff into its day bucket and removes it. Safe to run on several
+     * instances at once: a day bucket takes each hour bucket generation in once, and an hour bucket that
+     * picked up a late event while being folded keeps just that remainder for the next pass.
+     */
+    public long compact() {
+        Query batchQuery = Query.query(Criteria.where("granularity").is(Granularity.HOUR)
+                        .and("bucketStart").lt(compactionCutoff().minusHours(COMPACT_GRACE_HOURS)))
+                .with(Sort.by("bucketStart"))
+                .limit(COMPACT_BATCH_SIZE);
+
+        long folded = 0;
+        List<AppointmentRollup> batch;
+        do {
+            batch = mongoOperations.find(batchQuery, AppointmentRollup.class);
+            for (AppointmentRollup hour : batch) {
+                if (foldIntoDay(hour)) {
+                    folded++;
+                }
+            }
+        } while (batch.size() == COMPACT_BATCH_SIZE);
+        return folded;
+    }
+
+    private boolean foldIntoDay(AppointmentRollup hour) {
+        String generation = hour.getGeneration() != null ? hour.getGeneration() : new ObjectId().toHexString();
+        if (hour.getGeneration() == null) {
+            mongoOperations.updateFirst(Query.query(Criteria.where("_id").is(hour.getId())),
+                    new Update().set("generation", generation), AppointmentRollup.class);
+        }
+
+        AppointmentRollup day = new AppointmentRollup();
+        day.setGranularity(Granularity.DAY);
+        day.setDoctorId(hour.getDoctorId());
+        day.setDepartment(hour.getDepartment());
+        day.setDepartmentKey(hour.getDepartmentKey());
+        day.setBucketStart(hour.getBucketStart().toLocalDate().atStartOfDay());
+        day.setId(bucketId(day));
+
+        Query notMerged = Query.query(Criteria.where("_id").is(day.getId()).and("merged").ne(generation));
+        Update fold = insertDefaults(counters(hour, 1), day)
+                .addToSet("merged", generation)
+                .set("updatedAt", Instant.now());
+        try {
+            mongoOperations.upsert(notMerged, fold, AppointmentRollup.class);
+        } catch (DuplicateKeyException e) {
+            // Either this generation is already merged, or the day bucket was inserted concurrently
+            mongoOperations.updateFirst(notMerged, fold, AppointmentRollup.class);
+        }
+
+        DeleteResult removed = mongoOperations.remove(Query.query(Criteria.where("_id").is(hour.getId())
+                .and("events").is(hour.getEvents())), AppointmentRollup.class);
+        if (removed.getDeletedCount() > 0) {
+            return true;
+        }
+        // A late event landed after the read: keep only what it added, under a generation not merged yet. Only
+        // the fold that still sees this generation subtracts, so concurrent compactors can't both take it away
+        mongoOperations.updateFirst(Query.query(Criteria.where("_id").is(hour.getId()).and("generation").is(generation)),
+                counters(hour, -1).set("generation", new ObjectId().toHexString()), AppointmentRollup.class);
+        return false;
+    }
+
+    /**
+     * Recomputes the month's buckets from the appointments themselves, counting each one by its current status.
+     * Meant for months from before rollups were kept; events for the month while it runs may be lost.
+     */
+    public int rebuild(String month) {
+        YearMonth yearMonth = parseMonth(month);
+        LocalDateTime from = yearMonth.atDay(1).atStartOfDay();
+        LocalDateTime to = yearMonth.plusMonths(1).atDay(1).atStartOfDay();
+        LocalDateTime cutoff = compactionCutoff();
+
+        Map<String, AppointmentRollup> buckets = new LinkedHashMap<>();
+        Query inMonth = Query.query(Criteria.where("appointmentDateTime").gte(from).lt(to));
+        inMonth.fields().include("doctorId", "department", "appointmentDateTime", "duration", "status");
+        try (Stream<Appointment> hot = mongoOperations.stream(inMonth, Appointment.class);
+             Stream<Appointment> archived = mongoOperations.stream(inMonth, Appointment.class,
+                     Appointment.ARCHIVE_COLLECTION)) {
+            Stream.concat(hot, archived)
+                    .filter(a -> a.getDoctorId() != null)
+                    .forEach(a -> countCurrentStatus(
+                            bucketFor(buckets, a.getDoctorId(), a.getDepartment(), a.getAppointmentDateTime(), cutoff), a));
+        }
+
+        Instant now = Instant.now();
+        buckets.values().forEach(bucket -> {
+            bucket.setUpdatedAt(now);
+            if (bucket.getGranularity() == Granularity.HOUR) {
+                bucket.setGeneration(new ObjectId().toHexString());
+            }
+        });
+        mongoOperations.remove(Query.query(Criteria.where("bucketStart").gte(from).lt(to)), AppointmentRollup.class);
+        mongoOperations.insert(buckets.values(), AppointmentRollup.class);
+        logger.info("Rebuilt {} appointment rollups for {}", buckets.size(), yearMonth);
+        return buckets.size();
+    }
+
+    private void countCurrentStatus(AppointmentRollup bucket, Appointment appointment) {
+        bucket.setEvents(bucket.getEvents() + 1);
+        bucket.setCreated(bucket.getCreated() + 1);
+        AppointmentStatus status = appointment.getStatus();
+        if (status != AppointmentStatus.CANCELLED) {
+            int minutes = appointment.getDuration() != null ? appointment.getDuration() : defaultDuration;
+            bucket.setBookedMinutes(bucket.getBookedMinutes() + minutes);
+        }
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case CONFIRMED -> bucket.setConfirmed(bucket.getConfirmed() + 1);
+            case RESCHEDULED -> bucket.setRescheduled(bucket.getRescheduled() + 1);
+            case CANCELLED -> bucket.setCancelled(bucket.getCancelled() + 1);
+            case COMPLETED -> bucket.setCompleted(bucket.getCompleted() + 1);
+            case NO_SHOW -> bucket.setNoShow(bucket.getNoShow() + 1);
+            default -> {
+            }
+        }
+    }
+
+    public UtilizationReport getDoctorReport(String doctorId, String month) {
+        YearMonth yearMonth = parseMonth(month);
+        List<AppointmentRollup> buckets = findBuckets(Criteria.where("doctorId").is(doctorId), yearMonth);
+
+        UtilizationReport report = new UtilizationReport();
+        report.setDoctorId(doctorId);
+        fillReport(report, yearMonth, buckets, Map.of(doctorId, doctorScheduleService.getSchedule(doctorId)));
+        return report;
+    }
+
+    public UtilizationReport getDepartmentReport(String department, String month) {
+        YearMonth yearMonth = parseMonth(month);
+        String departmentKey = toDepartmentKey(department);
+        List<AppointmentRollup> buckets = findBuckets(Criteria.where("departmentKey").is(departmentKey), yearMonth);
+        List<Doctor> doctors = doctorRepository.findByDepartmentIgnoreCase(department);
+        if (doctors.isEmpty() && buckets.isEmpty()) {
+            throw new ResourceNotFoundException("No doctors found in department: " + department);
+        }
+
+        // Doctors who have since moved department still count for the bookings they had in it
+        Map<String, DoctorSchedule> schedules = new TreeMap<>();
+        doctors.forEach(doctor -> schedules.put(doctor.getDoctorId(), doctorScheduleService.getSchedule(doctor)));
+        buckets.forEach(bucket -> schedules.computeIfAbsent(bucket.getDoctorId(), doctorScheduleService::getSchedule));
+
+        UtilizationReport report = new UtilizationReport();
+        report.setDepartment(department);
+        fillReport(report, yearMonth, buckets, schedules);
+        return report;
+    }
+
+    private List<AppointmentRollup> findBuckets(Criteria scope, YearMonth month) {
+        Query query = Query.query(scope.and("bucketStart")
+                .gte(month.atDay(1).atStartOfDay())
+                .lt(month.plusMonths(1).atDay(1).atStartOfDay()));
+        query.fields().exclude("merged", "generation");
+        return mongoOperations.find(query, AppointmentRollup.class);
+    }
+
+    private void fillReport(UtilizationReport report, YearMonth month, List<AppointmentRollup> buckets,
+                            Map<String, DoctorSchedule> schedules) {
+        report.setMonth(month.toString());
+        report.setBucketsRead(buckets.size());
+
+        Map<LocalDate, UtilizationReport.Line> days = new TreeMap<>();
+        for (LocalDate date = month.atDay(1); !date.isAfter(month.atEndOfMonth()); date = date.plusDays(1)) {
+            days.put(date, new UtilizationReport.Line(date.toString()));
+        }
+        Map<String, UtilizationReport.Line> doctors = new TreeMap<>();
+        schedules.keySet().forEach(doctorId -> doctors.put(doctorId, new UtilizationReport.Line(doctorId)));
+
+        for (AppointmentRollup bucket : buckets) {
+            add(report.getTotal(), bucket);
+            add(days.get(bucket.getBucketStart().toLocalDate()), bucket);
+            add(doctors.get(bucket.getDoctorId()), bucket);
+        }
+        schedules.forEach((doctorId, schedule) -> days.forEach((date, line) -> {
+            int minutes = schedule.workingMinutesOn(date);
+            line.setWorkingMinutes(line.getWorkingMinutes() + minutes);
+            doctors.get(doctorId).setWorkingMinutes(doctors.get(doctorId).getWorkingMinutes() + minutes);
+            report.getTotal().setWorkingMinutes(report.getTotal().getWorkingMinutes() + minutes);
+        }));
+
+        days.values().forEach(AppointmentRollupService::computeUtilization);
+        doctors.values().forEach(AppointmentRollupService::computeUtilization);
+        computeUtilization(report.getTotal());
+        report.setDays(new ArrayList<>(days.values()));
+        if (report.getDepartment() != null) {
+            report.setDoctors(new ArrayList<>(doctors.values()));
+        }
+    }
+
+    private static void add(UtilizationReport.Line line, AppointmentRollup bucket) {
+        line.setCreated(line.getCreated() + bucket.getCreated());
+        line.setConfirmed(line.getConfirmed() + bucket.getConfirmed());
+        line.setRescheduled(line.getRescheduled() + bucket.getRescheduled());
+        line.setCancelled(line.getCancelled() + bucket.getCancelled());
+        line.setCompleted(line.getCompleted() + bucket.getCompleted());
+        line.setNoShow(line.getNoShow() + bucket.getNoShow());
+        line.setBookedMinutes(line.getBookedMinutes() + bucket.getBookedMinutes());
+    }
+
+    private static void computeUtilization(UtilizationReport.Line line) {
+        line.setUtilization(line.getWorkingMinutes() > 0 ?
+                Math.round(line.getBookedMinutes() * 10000.0 / line.getWorkingMinutes()) / 10000.0 :
+                0);
+    }
+
+    private static YearMonth parseMonth(String month) {
+        if (month == null || month.isBlank()) {
+            return YearMonth.now();
+        }
+        try {
+            return YearMonth.parse(month.trim());
+        } catch (DateTimeParseException e) {
+            throw new ValidationException("month must be in the form yyyy-MM");
+        }
+    }
+
+    // Hours before this belong in day buckets
+    private LocalDateTime compactionCutoff() {
+        return LocalDate.now().minusDays(compactAfterDays).atStartOfDay();
+    }
+
+    private AppointmentRollup bucketFor(Map<String, AppointmentRollup> buckets, String doctorId, String department,
+                                        LocalDateTime start, LocalDateTime cutoff) {
+        LocalDateTime hour = start.truncatedTo(ChronoUnit.HOURS);
+        AppointmentRollup bucket = new AppointmentRollup();
+        bucket.setGranularity(hour.isBefore(cutoff) ? Granularity.DAY : Granularity.HOUR);
+        bucket.setDoctorId(doctorId);
+        bucket.setDepartment(department);
+        bucket.setDepartmentKey(toDepartmentKey(department));
+        bucket.setBucketStart(bucket.getGranularity() == Granularity.DAY ? hour.toLocalDate().atStartOfDay() : hour);
+        bucket.setId(bucketId(bucket));
+        return buckets.computeIfAbsent(bucket.getId(), id -> bucket);
+    }
+
+    private static String bucketId(AppointmentRollup bucket) {
+        return (bucket.getGranularity() == Granularity.HOUR ? "H|" : "D|") + bucket.getDoctorId() + "|" +
+                (bucket.getDepartmentKey() != null ? bucket.getDepartmentKey() : "") + "|" +
+                (bucket.getGranularity() == Granularity.HOUR ?
+                        bucket.getBucketStart().format(HOUR_KEY) :
+                        bucket.getBucketStart().toLocalDate().toString());
+    }
+
+    private static String toDepartmentKey(String department) {
+        return department != null && !department.isBlank() ? department.trim().toLowerCase(Locale.ROOT) : null;
+    }
+
+    // $inc for each non-zero counter of the bucket, negated when sign is -1
+    private static Update counters(AppointmentRollup bucket, int sign) {
+        Update update = new Update();
+        incIfNonZero(update, "created", bucket.getCreated() * sign);
+        incIfNonZero(update, "confirmed", bucket.getConfirmed() * sign);
+        incIfNonZero(update, "rescheduled", bucket.getRescheduled() * sign);
+        incIfNonZero(update, "cancelled", bucket.getCancelled() * sign);
+        incIfNonZero(update, "completed", bucket.getCompleted() * sign);
+        incIfNonZero(update, "noShow", bucket.getNoShow() * sign);
+        incIfNonZero(update, "bookedMinutes", bucket.getBookedMinutes() * sign);
+        incIfNonZero(update, "events", bucket.getEvents() * sign);
+        return update;
+    }
+
+    private static void incIfNonZero(Update update, String field, long amount) {
+        if (amount != 0) {
+            update.inc(field, amount);
+        }
+    }
+
+    private static Update insertDefaults(Update update, AppointmentRollup bucket) {
+        update.setOnInsert("granularity", bucket.getGranularity())
+                .setOnInsert("doctorId", bucket.getDoctorId())
+                .setOnInsert("department", bucket.getDepartment())
+                .setOnInsert("departmentKey", bucket.getDepartmentKey())
+                .setOnInsert("bucketStart", bucket.getBucketStart());
+        if (bucket.getGranularity() == Granularity.HOUR) {
+            update.setOnInsert("generation", new ObjectId().toHexString());
+        }
+        return update;
+    }
+}
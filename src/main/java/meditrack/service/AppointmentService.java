@@ -1,27 +1,47 @@
 package meditrack.service;
 
 import meditrack.dto.AppointmentDTO;
+import meditrack.dto.AppointmentPatchRequest;
+import meditrack.dto.AppointmentSearchResponse;
+import meditrack.dto.AppointmentSearchSpec;
+import meditrack.dto.BulkOperationResult;
+import meditrack.dto.MultiGetResponse;
+import meditrack.dto.PageResponse;
+import meditrack.dto.ResourceVersion;
+import meditrack.dto.SeriesRequest;
+import meditrack.dto.SeriesResult;
 import meditrack.dto.StatsDTO;
 import meditrack.model.Appointment;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface AppointmentService {
 
     // Appointment CRUD Operations
     AppointmentDTO createAppointment(AppointmentDTO appointmentDTO);
     AppointmentDTO getAppointmentById(String appointmentId);
+    // The cached copy if it is at least at version, otherwise a fresh read that replaces it
+    AppointmentDTO getAppointmentAtVersion(String appointmentId, long version);
+    MultiGetResponse getAppointmentsByIds(List<String> appointmentIds);
     List<AppointmentDTO> getAllAppointments();
     AppointmentDTO updateAppointment(String appointmentId, AppointmentDTO appointmentDTO);
+    AppointmentDTO patchAppointment(String appointmentId, AppointmentPatchRequest patch);
     boolean deleteAppointmentById(String appointmentId);
 
     // Appointment Status Management
     Appointment confirmAppointment(String appointmentId);
     AppointmentDTO markCompleted(String appointmentId);
-    void cancelAppointment(String appointmentId, String reason);
+    AppointmentDTO markNoShow(String appointmentId);
+    AppointmentDTO cancelAppointment(String appointmentId, String reason);
     AppointmentDTO rescheduleAppointment(String appointmentId, LocalDateTime newDateTime);
     AppointmentDTO revisitAppointment(String appointmentId, LocalDateTime newDateTime, String reason);
+    SeriesResult createSeries(String appointmentId, SeriesRequest request);
+
+    // Doctor-day bulk operations
+    BulkOperationResult cancelDoctorAppointments(String doctorId, LocalDateTime from, LocalDateTime to, String reason);
+    BulkOperationResult shiftDoctorAppointments(String doctorId, LocalDateTime from, LocalDateTime to, Integer minutes);
 
     // Appointment Retrieval
     List<AppointmentDTO> getUpcomingAppointmentsByPatient(String patientId);
@@ -33,8 +53,15 @@ public interface AppointmentService {
 
     // Search and Filter
     List<AppointmentDTO> searchAppointments(String status, String startDate, String endDate);
+    PageResponse<AppointmentDTO> textSearch(String text, String namePrefix, String status, String doctorId,
+                                            String startDate, String endDate, int page, int size);
+    AppointmentSearchResponse search(AppointmentSearchSpec spec);
     List<Appointment> findByPatientIdAndStatus(String patientId, String status);
 
     // Statistics
     StatsDTO getAppointmentStats();
+
+    // Conditional GET validators
+    Optional<ResourceVersion> getAppointmentVersion(String appointmentId);
+    ResourceVersion getUpcomingAppointmentsByDoctorVersion(String doctorId);
 }
\ No newline at end of file
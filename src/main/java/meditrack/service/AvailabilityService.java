@@ -0,0 +1,16 @@
+package meditrack.service;
+
+import meditrack.dto.AvailableSlotDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AvailabilityService {
+
+    /**
+     * Earliest {@code count} free slots of {@code duration} minutes across every doctor in
+     * {@code department}, starting at {@code fromDate} (or now), in chronological order.
+     */
+    List<AvailableSlotDTO> findEarliestSlotsInDepartment(String department, LocalDate fromDate,
+                                                         int count, Integer duration);
+}
@@ -0,0 +1,19 @@
+package meditrack.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evicts cache entries on this instance and every other instance sharing the database.
+ * Transport is chosen with {@code appointment.cache.invalidation.transport}.
+ */
+public interface CacheInvalidationBus {
+
+    void publish(String cacheName, Collection<String> keys);
+
+    void publishAll(String cacheName);
+
+    default void publish(String cacheName, String key) {
+        publish(cacheName, List.of(key));
+    }
+}
@@ -0,0 +1,72 @@
+package meditrack.service;
+
+import meditrack.config.CacheConfig;
+import meditrack.model.Doctor;
+import meditrack.repository.DoctorRepository;
+import meditrack.util.DoctorSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compiles each doctor's schedule once and keeps it cached by doctorId.
+ */
+@Service
+public class DoctorScheduleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DoctorScheduleService.class);
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    /**
+     * Doctors without a local record get the standard 9-17 schedule.
+     */
+    @Cacheable(CacheConfig.DOCTOR_SCHEDULES)
+    public DoctorSchedule getSchedule(String doctorId) {
+        return doctorRepository.findByDoctorId(doctorId)
+                .map(DoctorSchedule::compile)
+                .orElseGet(DoctorSchedule::standard);
+    }
+
+    /**
+     * Schedule for a doctor document the caller already loaded. Recompiles and replaces the cached
+     * entry when the document's schedule fields no longer match it.
+     */
+    public DoctorSchedule getSchedule(Doctor doctor) {
+        Cache cache = cacheManager.getCache(CacheConfig.DOCTOR_SCHEDULES);
+        DoctorSchedule cached = cache != null ? cache.get(doctor.getDoctorId(), DoctorSchedule.class) : null;
+        if (cached != null && cached.getFingerprint() == DoctorSchedule.fingerprintOf(doctor)) {
+            return cached;
+        }
+
+        DoctorSchedule compiled = DoctorSchedule.compile(doctor);
+        if (cache != null) {
+            cache.put(doctor.getDoctorId(), compiled);
+        }
+        if (cached != null) {
+            logger.info("Schedule for doctor {} changed, recompiled", doctor.getDoctorId());
+        }
+        return compiled;
+    }
+
+    public void evict(String doctorId) {
+        cacheInvalidationBus.publish(CacheConfig.DOCTOR_SCHEDULES, doctorId);
+        logger.info("Evicted cached schedule for doctor {}", doctorId);
+    }
+
+    public void evictAll() {
+        cacheInvalidationBus.publishAll(CacheConfig.DOCTOR_SCHEDULES);
+        logger.info("Evicted all cached doctor schedules");
+    }
+}
@@ -1,5 +1,9 @@
 package meditrack.service;
 
+import meditrack.dto.EmailNotification;
+
+import java.util.List;
+
 public interface EmailService {
     void sendEmail(String toEmail, String subject, String body);
 
@@ -28,4 +32,12 @@ public interface EmailService {
 
     // ✅ Updated to include doctorName
     void sendAppointmentRevisit(String to, String patientName, String doctorName, String date, String time, String reason);
+
+    // One message listing every booked occurrence of a recurring series
+    void sendAppointmentSeries(String to, String patientName, String doctorName, List<String> dateTimes, String reason);
+
+    // Batched notifications for bulk operations; sent asynchronously over a single SMTP session
+    void sendAppointmentCancellations(List<EmailNotification> notifications);
+
+    void sendAppointmentReschedules(List<EmailNotification> notifications);
 }
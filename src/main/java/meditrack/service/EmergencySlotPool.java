@@ -0,0 +1,156 @@
+package meditrack.service;
+
+import meditrack.model.EmergencyPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per doctor and day, {@code appointment.emergency-slots} bookings are held back for emergencies.
+ * <p>
+ * A claim first takes a slot from an in-memory counter with a CAS loop, so a day this instance already knows
+ * is used up is refused without a round trip, and then makes it durable with one conditional upsert on
+ * {@link EmergencyPool} that only matches while fewer than the pool size are claimed. That upsert is what
+ * keeps instances from over-claiming; the counter follows what it returns. Regular bookings leave the unclaimed
+ * slots free until {@code appointment.emergency.release-before-minutes} before the slot they want, after which
+ * the reserve is theirs too.
+ */
+@Service
+public class EmergencySlotPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmergencySlotPool.class);
+    private static final int RETENTION_DAYS = 7;
+
+    private final Map<PoolKey, AtomicInteger> remaining = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MongoOperations mongoOperations;
+
+    @Value("${appointment.emergency-slots:5}")
+    private int slotsPerDay;
+
+    @Value("${appointment.emergency.release-before-minutes:120}")
+    private long releaseBeforeMinutes;
+
+    /**
+     * Claims one of the doctor's emergency slots on {@code date} for {@code appointmentId}; false when the
+     * day's pool is used up.
+     */
+    public boolean claim(String doctorId, LocalDate date, String appointmentId) {
+        PoolKey key = new PoolKey(doctorId, date);
+        AtomicInteger counter = remaining.computeIfAbsent(key, k -> new AtomicInteger(slotsPerDay));
+        int current;
+        do {
+            current = counter.get();
+            if (current <= 0) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, current - 1));
+
+        Instant now = Instant.now();
+        Query available = Query.query(Criteria.where("_id").is(key.id()).and("claimed").lt(slotsPerDay));
+        Update claim = new Update()
+                .inc("claimed", 1)
+                .push("appointmentIds", appointmentId)
+                .set("updatedAt", now)
+                .setOnInsert("doctorId", doctorId)
+                .setOnInsert("date", date)
+                .setOnInsert("expiresAt", date.plusDays(RETENTION_DAYS).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        try {
+            EmergencyPool pool;
+            try {
+                pool = mongoOperations.findAndModify(available, claim,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), EmergencyPool.class);
+            } catch (DuplicateKeyException e) {
+                // Either the pool is full, or another first claim for the day inserted it just before us
+                pool = mongoOperations.findAndModify(available, claim,
+                        FindAndModifyOptions.options().returnNew(true), EmergencyPool.class);
+            }
+            if (pool == null) {
+                counter.set(0);
+                return false;
+            }
+            // Other instances may have claimed some too
+            counter.accumulateAndGet(slotsPerDay - pool.getClaimed(), Math::min);
+            return true;
+        } catch (RuntimeException e) {
+            counter.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the slot claimed for {@code appointmentId}, if any, e.g. when that appointment is cancelled.
+     */
+    public void release(String doctorId, LocalDate date, String appointmentId) {
+        PoolKey key = new PoolKey(doctorId, date);
+        long released = mongoOperations.updateFirst(
+                Query.query(Criteria.where("_id").is(key.id()).and("appointmentIds").is(appointmentId)),
+                new Update().inc("claimed", -1).pull("appointmentIds", appointmentId).set("updatedAt", Instant.now()),
+                EmergencyPool.class).getModifiedCount();
+        AtomicInteger counter = remaining.get(key);
+        if (released > 0 && counter != null) {
+            counter.updateAndGet(value -> Math.min(slotsPerDay, value + 1));
+        }
+    }
+
+    /**
+     * Emergency slots regular bookings must leave free on the day of {@code start}: none once the slot is within
+     * the release cutoff, otherwise the unclaimed ones. A day this instance has no counter for, e.g. after a
+     * restart or when another instance took the claims, is read from the stored pool, since claimed emergencies
+     * already count as booked time.
+     */
+    public int heldBackSlots(String doctorId, LocalDateTime start) {
+        if (!start.isAfter(LocalDateTime.now().plusMinutes(releaseBeforeMinutes))) {
+            return 0;
+        }
+        PoolKey key = new PoolKey(doctorId, start.toLocalDate());
+        AtomicInteger counter = remaining.get(key);
+        if (counter != null) {
+            return Math.max(0, counter.get());
+        }
+
+        Query byId = Query.query(Criteria.where("_id").is(key.id()));
+        byId.fields().include("claimed");
+        EmergencyPool pool = mongoOperations.findOne(byId, EmergencyPool.class);
+        if (pool == null) {
+            return slotsPerDay;
+        }
+        int unclaimed = Math.max(0, slotsPerDay - pool.getClaimed());
+        // Only seeded from a stored pool, so a day nobody has claimed on is read again next time
+        return remaining.computeIfAbsent(key, k -> new AtomicInteger(unclaimed)).get();
+    }
+
+    @Scheduled(fixedDelayString = "${appointment.emergency.prune-interval-ms:3600000}")
+    public void prunePastDays() {
+        LocalDate today = LocalDate.now();
+        int before = remaining.size();
+        remaining.keySet().removeIf(key -> key.date().isBefore(today));
+        if (remaining.size() < before) {
+            logger.debug("Dropped {} past emergency pool counters", before - remaining.size());
+        }
+    }
+
+    private record PoolKey(String doctorId, LocalDate date) {
+        String id() {
+            return doctorId + ":" + date;
+        }
+    }
+}
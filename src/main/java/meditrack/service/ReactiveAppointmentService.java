@@ -0,0 +1,17 @@
+package meditrack.service;
+
+import meditrack.dto.AppointmentDTO;
+import meditrack.dto.StatsDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of the dashboard read operations in {@link AppointmentService}.
+ */
+public interface ReactiveAppointmentService {
+
+    Flux<AppointmentDTO> getUpcomingAppointmentsByDoctor(String doctorId);
+    Flux<AppointmentDTO> getAppointmentHistoryByPatient(String patientId);
+    Flux<AppointmentDTO> searchAppointments(String status, String startDate, String endDate);
+    Mono<StatsDTO> getAppointmentStats();
+}
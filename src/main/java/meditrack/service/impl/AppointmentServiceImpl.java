@@ -1,6 +1,7 @@
 package meditrack.service.impl;
 
 import feign.FeignException;
+import meditrack.config.CacheConfig;
 import meditrack.dto.*;
 import meditrack.enums.AppointmentStatus;
 import meditrack.exception.*;
@@ -8,17 +9,34 @@ import meditrack.feign.*;
 import meditrack.model.*;
 import meditrack.repository.*;
 import meditrack.service.*;
+import meditrack.util.DoctorSchedule;
+import meditrack.util.StageTimer;
+import org.bson.Document;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,38 +49,159 @@ public class AppointmentServiceImpl implements AppointmentService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd MMM yyyy");
     private static final DateTimeFormatter TIME_FORMATTER_12HR = DateTimeFormatter.ofPattern("hh:mm a");
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-    private static final int BUFFER_MINUTES = 30;
-    private static final int WORKING_HOUR_START = 9;
-    private static final int WORKING_HOUR_END = 17;
+    private static final int BUFFER_MINUTES = Appointment.BUFFER_MINUTES;
+    private static final int SUGGESTION_SEARCH_DAYS = 14;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_RANGE_DAYS = 31;
+    private static final int MAX_BULK_SHIFT_MINUTES = 7 * 24 * 60;
+    private static final int MIN_DURATION_MINUTES = 5;
+    private static final int MAX_DURATION_MINUTES = Appointment.MAX_DURATION_MINUTES;
+    private static final int MAX_SERIES_OCCURRENCES = 52;
+    private static final int SERIES_ALTERNATIVES = 3;
+    private static final int SERIES_ALTERNATIVE_SEARCH_DAYS = 3;
+    private static final Set<String> SORTABLE_FIELDS = Set.of(
+            "appointmentDateTime", "createdAt", "updatedAt", "patientName", "doctorName", "status", "department");
 
     @Autowired private AppointmentRepository appointmentRepository;
     @Autowired private DoctorRepository doctorRepository;
-    @Autowired private EmailService emailService;
+    @Autowired @Lazy private EmailService emailService;
     @Autowired private ModelMapper modelMapper;
     @Autowired private PatientFeign patientFeign;
+    @Autowired private MongoOperations mongoOperations;
+    @Autowired private DoctorScheduleService doctorScheduleService;
+    @Autowired private CacheInvalidationBus cacheInvalidationBus;
+    @Autowired private CacheManager cacheManager;
+    @Autowired private EmergencySlotPool emergencySlotPool;
+    @Autowired private ApplicationEventPublisher eventPublisher;
 
     @Autowired
     @Qualifier("doctorServiceClient")
     private DoctorServiceClient doctorFeign;
 
+    @Value("${appointment.default-duration:30}")
+    private int defaultDuration;
+
+    @Value("${appointment.mget.max-ids:100}")
+    private int maxMultiGetIds;
+
     @Override
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO) {
         logger.info("Creating appointment for patient: {}", appointmentDTO.getPatientId());
 
-        validatePatient(appointmentDTO.getPatientId());
-        DoctorDTO doctor = fetchDoctorDetails(appointmentDTO.getDoctorId());
-        validateAppointmentTime(appointmentDTO.getAppointmentDateTime(), appointmentDTO.getDuration());
+        StageTimer.time("patient", () -> validatePatient(appointmentDTO.getPatientId()));
+        DoctorDTO doctor = StageTimer.time("doctor", () -> fetchDoctorDetails(appointmentDTO.getDoctorId()));
+        validateAppointmentTime(appointmentDTO.getDoctorId(), appointmentDTO.getAppointmentDateTime(),
+                appointmentDTO.getDuration());
+        if (appointmentDTO.isEmergency()) {
+            return createEmergencyAppointment(appointmentDTO, doctor);
+        }
         checkForConflictingAppointments(appointmentDTO, doctor);
 
         Appointment appointment = buildAppointmentFromDTO(appointmentDTO, doctor);
-        Appointment savedAppointment = appointmentRepository.save(appointment);
+        Appointment savedAppointment = StageTimer.time("save", () -> appointmentRepository.save(appointment));
+        publishInvalidation(savedAppointment.getAppointmentId());
+        publishLifecycle(AppointmentLifecycleEvent.Type.CREATED, List.of(savedAppointment));
 
-        sendAppointmentConfirmationEmail(savedAppointment);
+        StageTimer.time("email", () -> sendAppointmentConfirmationEmail(savedAppointment));
         logger.info("Appointment created successfully with ID: {}", savedAppointment.getAppointmentId());
 
         return convertToDTO(savedAppointment);
     }
 
+    // Emergencies still may not overlap other bookings, but they fit in the day through the doctor's reserved
+    // pool rather than the time left over for regular bookings
+    private AppointmentDTO createEmergencyAppointment(AppointmentDTO appointmentDTO, DoctorDTO doctor) {
+        checkForOverlappingAppointments(appointmentDTO, doctor);
+        Appointment appointment = buildAppointmentFromDTO(appointmentDTO, doctor);
+        appointment.setEmergency(true);
+        LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+
+        boolean claimed = StageTimer.time("conflict", () -> emergencySlotPool.claim(
+                doctor.getDoctorId(), day, appointment.getAppointmentId()));
+        if (!claimed) {
+            throw new ConflictException(String.format("No emergency slots left for %s on %s",
+                    doctor.getDoctorName() != null ? doctor.getDoctorName() : "the doctor", day.format(DATE_FORMATTER)));
+        }
+
+        Appointment savedAppointment;
+        try {
+            savedAppointment = StageTimer.time("save", () -> appointmentRepository.save(appointment));
+        } catch (RuntimeException e) {
+            emergencySlotPool.release(doctor.getDoctorId(), day, appointment.getAppointmentId());
+            throw e;
+        }
+        publishInvalidation(savedAppointment.getAppointmentId());
+        publishLifecycle(AppointmentLifecycleEvent.Type.CREATED, List.of(savedAppointment));
+
+        StageTimer.time("email", () -> sendAppointmentConfirmationEmail(savedAppointment));
+        logger.info("Emergency appointment created with ID: {}", savedAppointment.getAppointmentId());
+
+        return convertToDTO(savedAppointment);
+    }
+
+    private void releaseEmergencySlot(Appointment appointment) {
+        if (Boolean.TRUE.equals(appointment.getEmergency()) && appointment.getAppointmentDateTime() != null) {
+            emergencySlotPool.release(appointment.getDoctorId(),
+                    appointment.getAppointmentDateTime().toLocalDate(), appointment.getAppointmentId());
+        }
+    }
+
+    private boolean isEmergency(Appointment appointment) {
+        return Boolean.TRUE.equals(appointment.getEmergency());
+    }
+
+    // Emergency claims are per doctor and day, so an emergency moving to another of either needs a claim there
+    private boolean movesEmergencyClaim(Appointment appointment, String doctorId, LocalDateTime newStart) {
+        return isEmergency(appointment) && appointment.getAppointmentDateTime() != null
+                && (!doctorId.equals(appointment.getDoctorId())
+                || !newStart.toLocalDate().equals(appointment.getAppointmentDateTime().toLocalDate()));
+    }
+
+    /**
+     * Runs the write that moves {@code appointment} to {@code doctorId} at {@code newStart}, taking an emergency
+     * appointment's claim along: the new day's slot is claimed first and the old one released once the write
+     * succeeded, or the new one given back if it failed.
+     */
+    private <T> T moveWithEmergencyClaim(Appointment appointment, String doctorId, LocalDateTime newStart,
+                                         Supplier<T> write) {
+        if (!movesEmergencyClaim(appointment, doctorId, newStart)) {
+            return write.get();
+        }
+        LocalDate newDay = newStart.toLocalDate();
+        boolean claimed = StageTimer.time("conflict", () -> emergencySlotPool.claim(
+                doctorId, newDay, appointment.getAppointmentId()));
+        if (!claimed) {
+            throw new ConflictException(String.format("No emergency slots left on %s", newDay.format(DATE_FORMATTER)));
+        }
+
+        T result;
+        try {
+            result = write.get();
+        } catch (RuntimeException e) {
+            emergencySlotPool.release(doctorId, newDay, appointment.getAppointmentId());
+            throw e;
+        }
+        releaseEmergencySlot(appointment);
+        return result;
+    }
+
+    // Regular bookings leave the day's unclaimed emergency slots free until the pool is released
+    private void checkEmergencyReserve(String doctorId, String appointmentId, LocalDateTime start, int duration) {
+        int heldBack = emergencySlotPool.heldBackSlots(doctorId, start);
+        if (heldBack == 0) {
+            return;
+        }
+        LocalDate day = start.toLocalDate();
+        int workingMinutes = doctorScheduleService.getSchedule(doctorId).workingMinutesOn(day);
+        long bookedMinutes = StageTimer.time("conflict", () -> appointmentRepository.bookedMinutes(
+                doctorId, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), appointmentId));
+        if (bookedMinutes + duration + (long) heldBack * defaultDuration > workingMinutes) {
+            throw new ConflictException(String.format(
+                    "No regular appointments left on %s; the remaining time is held for emergencies",
+                    day.format(DATE_FORMATTER)));
+        }
+    }
+
 
     private DoctorDTO fetchDoctorDetails(String doctorId) {
         try {
@@ -102,20 +241,34 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
     }
 
-    private void validateAppointmentTime(LocalDateTime requestedStart, int duration) {
-        LocalDateTime requestedEnd = requestedStart.plusMinutes(duration);
-
+    private void validateAppointmentTime(String doctorId, LocalDateTime requestedStart, Integer duration) {
         if (requestedStart.isBefore(LocalDateTime.now())) {
             throw new ValidationException("Appointment time must be in the future");
         }
+        // Conflict queries only look back MAX_DURATION_MINUTES for bookings that could still be running
+        if (duration != null && (duration < MIN_DURATION_MINUTES || duration > MAX_DURATION_MINUTES)) {
+            throw new ValidationException(String.format("duration must be between %d and %d minutes",
+                    MIN_DURATION_MINUTES, MAX_DURATION_MINUTES));
+        }
 
-        if (requestedStart.getHour() < WORKING_HOUR_START || requestedEnd.getHour() >= WORKING_HOUR_END) {
+        DoctorSchedule schedule = doctorScheduleService.getSchedule(doctorId);
+        if (!schedule.covers(requestedStart, duration != null ? duration : defaultDuration)) {
+            LocalDate day = requestedStart.toLocalDate();
             throw new ValidationException(String.format(
-                    "Appointments must be between %dAM and %dPM", WORKING_HOUR_START, WORKING_HOUR_END));
+                    "Appointments on %s must be within the doctor's working hours (%s)",
+                    day.format(DATE_FORMATTER), schedule.describe(day)));
         }
     }
 
     private void checkForConflictingAppointments(AppointmentDTO appointmentDTO, DoctorDTO doctor) {
+        checkForOverlappingAppointments(appointmentDTO, doctor);
+        checkEmergencyReserve(doctor.getDoctorId(), appointmentDTO.getAppointmentId(),
+                appointmentDTO.getAppointmentDateTime(),
+                appointmentDTO.getDuration() != null ? appointmentDTO.getDuration() : defaultDuration);
+    }
+
+    // Doctor and patient overlaps only; regular bookings also have to leave the emergency reserve free
+    private void checkForOverlappingAppointments(AppointmentDTO appointmentDTO, DoctorDTO doctor) {
         if (appointmentDTO == null || doctor == null) {
             throw new IllegalArgumentException("AppointmentDTO and DoctorDTO must not be null");
         }
@@ -130,50 +283,64 @@ public class AppointmentServiceImpl implements AppointmentService {
                 doctor.getDoctorName().replace("Dr. Dr.", "Dr.") :
                 "The doctor";
 
-        LocalDateTime requestedEnd = requestedStart.plusMinutes(appointmentDTO.getDuration());
-        LocalDateTime startOfDay = requestedStart.toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1).minusNanos(1);
-
-        List<Appointment> existingAppointments = appointmentRepository
-                .findByDoctorIdAndDate(doctor.getDoctorId(), startOfDay, endOfDay);
-
-        for (Appointment existing : existingAppointments) {
-            if (existing.getAppointmentId().equals(appointmentDTO.getAppointmentId())) {
-                continue;
-            }
-
-            LocalDateTime existingStart = existing.getAppointmentDateTime();
-            LocalDateTime existingEnd = existingStart.plusMinutes(existing.getDuration());
-            LocalDateTime bufferStart = existingStart.minusMinutes(BUFFER_MINUTES);
-            LocalDateTime bufferEnd = existingEnd.plusMinutes(BUFFER_MINUTES);
+        int duration = appointmentDTO.getDuration() != null ? appointmentDTO.getDuration() : defaultDuration;
+        LocalDateTime requestedEnd = requestedStart.plusMinutes(duration);
 
-            if (requestedStart.isBefore(bufferEnd) && requestedEnd.isAfter(bufferStart)) {
-                LocalDateTime suggestedTime = calculateSuggestedTime(bufferEnd);
-                String formattedTime = formatSuggestedTime(suggestedTime);
+        List<Appointment> conflicts = findBookingConflicts(appointmentDTO.getAppointmentId(), doctor.getDoctorId(),
+                appointmentDTO.getPatientId(), requestedStart, requestedEnd);
+        Optional<Appointment> conflict = conflicts.stream()
+                .filter(existing -> doctor.getDoctorId().equals(existing.getDoctorId()))
+                .findFirst();
+
+        if (conflict.isPresent()) {
+            LocalDateTime suggestedTime = calculateSuggestedTime(
+                    doctor.getDoctorId(), conflict.get().getBufferedEnd(), duration);
+            String formattedTime = formatSuggestedTime(suggestedTime);
+
+            String errorMessage = String.format(
+                    "%s is not available at this time. The next available slot is %s",
+                    doctorName,
+                    formattedTime);
+
+            logger.info("About to throw ConflictException: {}", errorMessage);
+            ConflictException conflictEx = new ConflictException(errorMessage);
+            logger.info("ConflictException created: {}", conflictEx.getClass().getName());
+            throw conflictEx;
+        }
+        rejectPatientOverlap(conflicts, doctor.getDoctorId());
+    }
 
-                String errorMessage = String.format(
-                        "%s is not available at this time. The next available slot is %s",
-                        doctorName,
-                        formattedTime);
+    // Doctor and patient clashes in one round trip, minus the appointment being moved, if any
+    private List<Appointment> findBookingConflicts(String appointmentId, String doctorId, String patientId,
+                                                   LocalDateTime start, LocalDateTime end) {
+        return StageTimer.time("conflict", () -> appointmentRepository
+                        .findBookingConflicts(doctorId, patientId, start, end))
+                .stream()
+                .filter(existing -> !existing.getAppointmentId().equals(appointmentId))
+                .collect(Collectors.toList());
+    }
 
-                logger.info("About to throw ConflictException: {}", errorMessage);
-                ConflictException conflictEx = new ConflictException(errorMessage);
-                logger.info("ConflictException created: {}", conflictEx.getClass().getName());
-                throw conflictEx;
+    // Run after the doctor-side check: an overlapping booking of the patient's with the same doctor is always
+    // inside that doctor's buffered window, so whatever has another doctor came from the patient side
+    private void rejectPatientOverlap(List<Appointment> conflicts, String doctorId) {
+        for (Appointment clash : conflicts) {
+            if (!doctorId.equals(clash.getDoctorId())) {
+                throw new ConflictException(String.format(
+                        "The patient already has an appointment with %s on %s",
+                        clash.getDoctorName() != null ? clash.getDoctorName() : "another doctor",
+                        formatSuggestedTime(clash.getAppointmentDateTime())));
             }
         }
     }
 
-    private LocalDateTime calculateSuggestedTime(LocalDateTime bufferEnd) {
+    private LocalDateTime calculateSuggestedTime(String doctorId, LocalDateTime bufferEnd, int duration) {
         // Round up to next hour
-        bufferEnd = bufferEnd.withMinute(0).withSecond(0).withNano(0).plusHours(1);
+        LocalDateTime rounded = bufferEnd.withMinute(0).withSecond(0).withNano(0).plusHours(1);
 
-        // Special handling for noon
-        if (bufferEnd.getHour() == 12) {
-            bufferEnd = bufferEnd.withHour(13).withMinute(0);
-        }
-
-        return bufferEnd;
+        // Lunch and other breaks come from the doctor's schedule instead of a fixed noon skip
+        LocalDateTime withinHours = doctorScheduleService.getSchedule(doctorId)
+                .nextStartAtOrAfter(rounded, duration, SUGGESTION_SEARCH_DAYS);
+        return withinHours != null ? withinHours : rounded;
     }
 
     private String formatSuggestedTime(LocalDateTime suggestedTime) {
@@ -208,20 +375,103 @@ public class AppointmentServiceImpl implements AppointmentService {
     }
 
     private String generateAppointmentId() {
-        String id;
-        do {
-            id = "APP-" + String.format("%04d", random.nextInt(10000));
-        } while (appointmentRepository.existsByAppointmentId(id));
-        return id;
+        try (StageTimer.Stage ignored = StageTimer.stage("id")) {
+            String id;
+            do {
+                id = "APP-" + String.format("%04d", random.nextInt(10000));
+            } while (isAppointmentIdTaken(id));
+            return id;
+        }
+    }
+
+    // Archived appointments keep their ids, and history lookups read both collections
+    private boolean isAppointmentIdTaken(String id) {
+        return appointmentRepository.existsByAppointmentId(id)
+                || appointmentRepository.countArchived(Criteria.where("appointmentId").is(id)) > 0;
     }
 
     @Override
+    @Cacheable(CacheConfig.APPOINTMENTS)
     public AppointmentDTO getAppointmentById(String appointmentId) {
         Appointment appointment = appointmentRepository.findByAppointmentId(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
         return convertToDTO(appointment);
     }
 
+    @Override
+    public AppointmentDTO getAppointmentAtVersion(String appointmentId, long version) {
+        Cache cache = cacheManager.getCache(CacheConfig.APPOINTMENTS);
+        AppointmentDTO cached = cache != null ? cache.get(appointmentId, AppointmentDTO.class) : null;
+        if (cached != null && cached.getVersion() != null && cached.getVersion() >= version) {
+            return cached;
+        }
+        Appointment appointment = StageTimer.time("read", () -> appointmentRepository.findByAppointmentId(appointmentId))
+                .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
+        AppointmentDTO dto = convertToDTO(appointment);
+        if (cache != null) {
+            cache.put(appointmentId, dto);
+        }
+        return dto;
+    }
+
+    /**
+     * Serves what it can from the appointment cache getAppointmentById fills, and the rest with one $in query;
+     * ids still not found are looked up in the archive. Duplicate ids are returned once.
+     */
+    @Override
+    public MultiGetResponse getAppointmentsByIds(List<String> appointmentIds) {
+        if (appointmentIds == null || appointmentIds.isEmpty()) {
+            throw new ValidationException("ids must contain at least one appointment id");
+        }
+        if (appointmentIds.stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new ValidationException("ids must not contain blank values");
+        }
+        Set<String> requested = new LinkedHashSet<>(appointmentIds);
+        if (requested.size() > maxMultiGetIds) {
+            throw new ValidationException(String.format("At most %d ids can be fetched at once", maxMultiGetIds));
+        }
+
+        Cache cache = cacheManager.getCache(CacheConfig.APPOINTMENTS);
+        Map<String, AppointmentDTO> found = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        for (String id : requested) {
+            AppointmentDTO cached = cache != null ? cache.get(id, AppointmentDTO.class) : null;
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                uncached.add(id);
+            }
+        }
+
+        if (!uncached.isEmpty()) {
+            List<Appointment> hot = StageTimer.time("read", () -> appointmentRepository.findByAppointmentIdIn(uncached));
+            for (Appointment appointment : hot) {
+                AppointmentDTO dto = convertToDTO(appointment);
+                if (found.putIfAbsent(appointment.getAppointmentId(), dto) == null && cache != null) {
+                    cache.put(appointment.getAppointmentId(), dto);
+                }
+            }
+            // Archived appointments aren't cached, as getAppointmentById doesn't serve them
+            List<String> notHot = uncached.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+            if (!notHot.isEmpty()) {
+                StageTimer.time("read", () -> appointmentRepository.findArchived(
+                                Criteria.where("appointmentId").in(notHot)))
+                        .forEach(appointment -> found.putIfAbsent(appointment.getAppointmentId(), convertToDTO(appointment)));
+            }
+        }
+
+        MultiGetResponse response = new MultiGetResponse();
+        for (String id : requested) {
+            AppointmentDTO dto = found.get(id);
+            if (dto != null) {
+                response.getAppointments().add(dto);
+            } else {
+                response.getMissing().add(id);
+            }
+        }
+        return response;
+    }
+
     @Override
     public List<AppointmentDTO> getAllAppointments() {
         return appointmentRepository.findAll().stream()
@@ -233,17 +483,49 @@ public class AppointmentServiceImpl implements AppointmentService {
     public AppointmentDTO updateAppointment(String appointmentId, AppointmentDTO appointmentDTO) {
         try {
             Appointment existing = getExistingAppointment(appointmentId);
-            DoctorDTO doctor = fetchDoctorDetails(appointmentDTO.getDoctorId());
+            // The conflict check excludes this appointment and checks its patient by what is stored, not the body
+            appointmentDTO.setAppointmentId(appointmentId);
+            appointmentDTO.setPatientId(existing.getPatientId());
+            // Status only moves through the transition endpoints; nulls are skipped by the mapping below
+            appointmentDTO.setStatus(null);
+            boolean slotChanged = !Objects.equals(appointmentDTO.getDoctorId(), existing.getDoctorId())
+                    || !Objects.equals(appointmentDTO.getAppointmentDateTime(), existing.getAppointmentDateTime())
+                    || !Objects.equals(appointmentDTO.getDuration(), existing.getDuration());
+            if (slotChanged && existing.getStatus() != null && existing.getStatus().isTerminal()) {
+                throw new ConflictException(String.format(
+                        "Appointment %s is %s and can no longer be moved", appointmentId, existing.getStatus()));
+            }
+            DoctorDTO doctor = StageTimer.time("doctor", () -> fetchDoctorDetails(appointmentDTO.getDoctorId()));
+
+            validateAppointmentTime(appointmentDTO.getDoctorId(), appointmentDTO.getAppointmentDateTime(),
+                    appointmentDTO.getDuration());
+            if (isEmergency(existing)) {
+                checkForOverlappingAppointments(appointmentDTO, doctor);
+            } else {
+                checkForConflictingAppointments(appointmentDTO, doctor);
+            }
 
-            validateAppointmentTime(appointmentDTO.getAppointmentDateTime(), appointmentDTO.getDuration());
-            checkForConflictingAppointments(appointmentDTO, doctor);
+            AppointmentLifecycleEvent.Slot previous = slotOf(existing);
+            // Claims are moved below from the stored slot, which the mapping is about to overwrite
+            Appointment stored = new Appointment();
+            stored.setAppointmentId(appointmentId);
+            stored.setDoctorId(existing.getDoctorId());
+            stored.setAppointmentDateTime(existing.getAppointmentDateTime());
+            stored.setEmergency(existing.getEmergency());
 
             modelMapper.map(appointmentDTO, existing);
+            existing.setEmergency(stored.getEmergency());  // only set when booking
             existing.setUpdatedAt(LocalDateTime.now());
             existing.setDoctorName(doctor.getDoctorName());
 
-            Appointment updated = appointmentRepository.save(existing);
+            Appointment updated = moveWithEmergencyClaim(stored, doctor.getDoctorId(),
+                    appointmentDTO.getAppointmentDateTime(),
+                    () -> StageTimer.time("save", () -> appointmentRepository.save(existing)));
+            publishInvalidation(appointmentId);
+            publishMove(AppointmentLifecycleEvent.Type.MOVED, updated, previous);
             return convertToDTO(updated);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictException("Appointment was modified by another request. Please retry.", e);
         } catch (ConflictException | ValidationException | ResourceNotFoundException e) {
             // Re-throw these specific exceptions so Spring can handle them with @ResponseStatus
             throw e;
@@ -253,27 +535,162 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
     }
 
+    @Override
+    public AppointmentDTO patchAppointment(String appointmentId, AppointmentPatchRequest patch) {
+        Appointment existing = getExistingAppointment(appointmentId);
+        Update changes = new Update();
+
+        boolean doctorChanged = setIfChanged(changes, "doctorId", patch.getDoctorId(), existing.getDoctorId());
+        boolean timeChanged = setIfChanged(changes, "appointmentDateTime",
+                patch.getAppointmentDateTime(), existing.getAppointmentDateTime());
+        boolean durationChanged = setIfChanged(changes, "duration", patch.getDuration(), existing.getDuration());
+
+        if (setIfChanged(changes, "patientName", patch.getPatientName(), existing.getPatientName())) {
+            changes.set("patientNameKey", Appointment.toNameKey(patch.getPatientName()));
+        }
+        setIfChanged(changes, "patientEmail", patch.getPatientEmail(), existing.getPatientEmail());
+        setIfChanged(changes, "phoneNumber", patch.getPhoneNumber(), existing.getPhoneNumber());
+        setIfChanged(changes, "age", patch.getAge(), existing.getAge());
+        boolean departmentChanged = setIfChanged(changes, "department", patch.getDepartment(), existing.getDepartment());
+        setIfChanged(changes, "reason", patch.getReason(), existing.getReason());
+        setIfChanged(changes, "symptoms", patch.getSymptoms(), existing.getSymptoms());
+        setIfChanged(changes, "additionalNotes", patch.getAdditionalNotes(), existing.getAdditionalNotes());
+
+        if (changes.getUpdateObject().isEmpty()) {
+            return convertToDTO(existing);
+        }
+
+        // Doctor lookup and conflict detection only matter when the slot itself moves
+        if (doctorChanged || timeChanged || durationChanged) {
+            if (existing.getStatus() != null && existing.getStatus().isTerminal()) {
+                throw new ConflictException(String.format(
+                        "Appointment %s is %s and can no longer be moved", appointmentId, existing.getStatus()));
+            }
+
+            DoctorDTO doctor;
+            if (doctorChanged) {
+                doctor = StageTimer.time("doctor", () -> fetchDoctorDetails(patch.getDoctorId()));
+                changes.set("doctorName", doctor.getDoctorName());
+            } else {
+                doctor = new DoctorDTO();
+                doctor.setDoctorId(existing.getDoctorId());
+                doctor.setDoctorName(existing.getDoctorName());
+            }
+
+            AppointmentDTO slot = new AppointmentDTO();
+            slot.setAppointmentId(appointmentId);
+            slot.setPatientId(existing.getPatientId());
+            slot.setAppointmentDateTime(timeChanged ? patch.getAppointmentDateTime() : existing.getAppointmentDateTime());
+            slot.setDuration(durationChanged ? patch.getDuration() : existing.getDuration());
+
+            validateAppointmentTime(doctor.getDoctorId(), slot.getAppointmentDateTime(), slot.getDuration());
+            if (isEmergency(existing)) {
+                checkForOverlappingAppointments(slot, doctor);
+            } else {
+                checkForConflictingAppointments(slot, doctor);
+            }
+            setSlot(changes, slot.getAppointmentDateTime(),
+                    slot.getDuration() != null ? slot.getDuration() : defaultDuration);
+        }
+
+        Appointment patched = moveWithEmergencyClaim(existing,
+                doctorChanged ? patch.getDoctorId() : existing.getDoctorId(),
+                timeChanged ? patch.getAppointmentDateTime() : existing.getAppointmentDateTime(),
+                () -> StageTimer.time("save", () -> appointmentRepository
+                                .updateIfVersion(appointmentId, existing.getVersion(), changes))
+                        .orElseThrow(() -> new ConflictException(
+                                "Appointment was modified by another request. Please retry.")));
+        publishInvalidation(appointmentId);
+        if (doctorChanged || timeChanged || durationChanged || departmentChanged) {
+            publishMove(AppointmentLifecycleEvent.Type.MOVED, patched, slotOf(existing));
+        }
+        return convertToDTO(patched);
+    }
+
+    // $set updates skip AppointmentBeforeConvertCallback, so every write that moves a slot sets its derived bounds
+    private Update setSlot(Update changes, LocalDateTime start, int duration) {
+        LocalDateTime end = start.plusMinutes(duration);
+        return changes.set("appointmentDateTime", start)
+                .set("endDateTime", end)
+                .set("bufferedStart", start.minusMinutes(BUFFER_MINUTES))
+                .set("bufferedEnd", end.plusMinutes(BUFFER_MINUTES));
+    }
+
+    private <T> boolean setIfChanged(Update changes, String field, T requested, T current) {
+        if (requested == null || requested.equals(current)) {
+            return false;
+        }
+        changes.set(field, requested);
+        return true;
+    }
+
     private Appointment getExistingAppointment(String appointmentId) {
         return appointmentRepository.findByAppointmentId(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
     }
 
 @Override
-    public void cancelAppointment(String appointmentId, String reason) {
+    public AppointmentDTO cancelAppointment(String appointmentId, String reason) {
         logger.info("Cancelling appointment: {} with reason: {}", appointmentId, reason);
 
-        Appointment appointment = getExistingAppointment(appointmentId);
-        appointment.setStatus(AppointmentStatus.CANCELLED);
-        appointment.setCancellationReason(reason);
-        appointment.setUpdatedAt(LocalDateTime.now());
+        Appointment cancelled = applyTransition(appointmentId, AppointmentStatus.CANCELLED,
+                new Update().set("cancellationReason", reason));
+        releaseEmergencySlot(cancelled);
+        publishLifecycle(AppointmentLifecycleEvent.Type.CANCELLED, List.of(cancelled));
 
-        // ✅ FIXED: Save first, then send email ONCE
-        Appointment savedAppointment = appointmentRepository.save(appointment);
-        
         // ✅ Send email only once with consistent formatting
-        sendCancellationEmail(savedAppointment);
-        
+        StageTimer.time("email", () -> sendCancellationEmail(cancelled));
+
         logger.info("Appointment {} cancelled successfully, email sent", appointmentId);
+        return convertToDTO(cancelled);
+    }
+
+    /**
+     * Applies a status transition as one conditional findAndModify. Only when nothing matched is the
+     * appointment read again, to tell a missing appointment apart from a disallowed transition.
+     */
+    private Appointment applyTransition(String appointmentId, AppointmentStatus target, Update changes) {
+        Appointment updated = StageTimer.time("save", () -> appointmentRepository
+                        .transitionStatus(appointmentId, target, changes))
+                .orElseThrow(() -> {
+                    Appointment current = getExistingAppointment(appointmentId);
+                    return new ConflictException(String.format(
+                            "Appointment %s cannot be moved from %s to %s",
+                            appointmentId, current.getStatus(), target));
+                });
+        publishInvalidation(appointmentId);
+        return updated;
+    }
+
+    // Evicts the appointment and the stats on every instance; called after each successful write
+    private void publishInvalidation(String appointmentId) {
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENTS, appointmentId);
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENT_STATS, CacheConfig.STATS_KEY);
+    }
+
+    // Feeds the analytics rollups, which are updated asynchronously
+    private void publishLifecycle(AppointmentLifecycleEvent.Type type, List<Appointment> appointments) {
+        if (appointments.isEmpty()) {
+            return;
+        }
+        eventPublisher.publishEvent(new AppointmentLifecycleEvent(type, appointments.stream()
+                .map(a -> new AppointmentLifecycleEvent.Change(a.getAppointmentId(), slotOf(a), null))
+                .collect(Collectors.toList())));
+    }
+
+    private void publishMove(AppointmentLifecycleEvent.Type type, Appointment moved,
+                             AppointmentLifecycleEvent.Slot previous) {
+        AppointmentLifecycleEvent.Slot slot = slotOf(moved);
+        if (type == AppointmentLifecycleEvent.Type.MOVED && slot.equals(previous)) {
+            return;
+        }
+        eventPublisher.publishEvent(new AppointmentLifecycleEvent(type,
+                List.of(new AppointmentLifecycleEvent.Change(moved.getAppointmentId(), slot, previous))));
+    }
+
+    private AppointmentLifecycleEvent.Slot slotOf(Appointment appointment) {
+        return new AppointmentLifecycleEvent.Slot(appointment.getDoctorId(), appointment.getDepartment(),
+                appointment.getAppointmentDateTime(), durationOf(appointment));
     }
 
     @Override
@@ -283,30 +700,42 @@ public class AppointmentServiceImpl implements AppointmentService {
         try {
             Appointment appointment = getExistingAppointment(appointmentId);
 
+            if (appointment.getStatus() != null
+                    && !appointment.getStatus().canTransitionTo(AppointmentStatus.RESCHEDULED)) {
+                throw new ConflictException(String.format(
+                        "Appointment %s cannot be rescheduled from %s", appointmentId, appointment.getStatus()));
+            }
+
             // Enhanced validation with better error messages
             if (newDateTime.isBefore(LocalDateTime.now())) {
                 throw new ValidationException("Cannot reschedule to a past date/time");
             }
 
-            validateAppointmentTime(newDateTime, appointment.getDuration());
+            validateAppointmentTime(appointment.getDoctorId(), newDateTime, appointment.getDuration());
 
-            LocalDateTime newEnd = newDateTime.plusMinutes(appointment.getDuration());
-            List<Appointment> conflicts = appointmentRepository
-                    .findByDateTimeBetweenAndDoctorId(newDateTime, newEnd, appointment.getDoctorId())
-                    .stream()
-                    .filter(a -> !a.getAppointmentId().equals(appointmentId))
-                    .collect(Collectors.toList());
+            int duration = durationOf(appointment);
+            List<Appointment> conflicts = findBookingConflicts(appointmentId, appointment.getDoctorId(),
+                    appointment.getPatientId(), newDateTime, newDateTime.plusMinutes(duration));
 
-            if (!conflicts.isEmpty()) {
+            if (conflicts.stream().anyMatch(a -> appointment.getDoctorId().equals(a.getDoctorId()))) {
                 throw new ConflictException("Doctor is not available at the requested time. Please choose another time.");
             }
+            rejectPatientOverlap(conflicts, appointment.getDoctorId());
+            if (!isEmergency(appointment)) {
+                checkEmergencyReserve(appointment.getDoctorId(), appointmentId, newDateTime, duration);
+            }
 
-            appointment.setAppointmentDateTime(newDateTime);
-            appointment.setStatus(AppointmentStatus.RESCHEDULED);
-            appointment.setUpdatedAt(LocalDateTime.now());
-
-            Appointment rescheduled = appointmentRepository.save(appointment);
-            sendRescheduleEmail(rescheduled);
+            // Write only the changed fields, and only if nobody touched the appointment since we read it
+            Update changes = setSlot(new Update(), newDateTime, duration)
+                    .set("status", AppointmentStatus.RESCHEDULED);
+            Appointment rescheduled = moveWithEmergencyClaim(appointment, appointment.getDoctorId(), newDateTime,
+                    () -> StageTimer.time("save", () -> appointmentRepository
+                                    .updateIfVersion(appointmentId, appointment.getVersion(), changes))
+                            .orElseThrow(() -> new ConflictException(
+                                    "Appointment was modified by another request. Please retry.")));
+            publishInvalidation(appointmentId);
+            publishMove(AppointmentLifecycleEvent.Type.RESCHEDULED, rescheduled, slotOf(appointment));
+            StageTimer.time("email", () -> sendRescheduleEmail(rescheduled));
 
             return convertToDTO(rescheduled);
         } catch (ConflictException | ValidationException | ResourceNotFoundException e) {
@@ -317,6 +746,303 @@ public class AppointmentServiceImpl implements AppointmentService {
             throw new ServiceException("Failed to reschedule appointment due to an unexpected error");
         }
     }
+
+    @Override
+    public BulkOperationResult cancelDoctorAppointments(String doctorId, LocalDateTime from, LocalDateTime to,
+                                                        String reason) {
+        validateBulkRange(from, to);
+        if (reason == null || reason.isBlank()) {
+            throw new ValidationException("Cancellation reason is required");
+        }
+        if (reason.trim().length() > 200) {
+            throw new ValidationException("Cancellation reason must not exceed 200 characters");
+        }
+        String trimmedReason = reason.trim();
+
+        List<Appointment> inRange = StageTimer.time("read", () ->
+                appointmentRepository.findByDoctorIdAndDate(doctorId, from, to));
+        BulkOperationResult result = new BulkOperationResult(doctorId, "cancel");
+        result.setMatched(inRange.size());
+
+        List<Appointment> cancellable = new ArrayList<>();
+        for (Appointment appointment : inRange) {
+            if (appointment.getStatus() == null || appointment.getStatus().canTransitionTo(AppointmentStatus.CANCELLED)) {
+                cancellable.add(appointment);
+            } else {
+                result.skip(appointment.getAppointmentId(), "Already " + appointment.getStatus());
+            }
+        }
+        if (cancellable.isEmpty()) {
+            return result;
+        }
+
+        // Each cancel only applies to the version checked above, so one changed in between is skipped, not overwritten
+        List<AppointmentRepositoryCustom.VersionedUpdate> updates = new ArrayList<>(cancellable.size());
+        for (Appointment appointment : cancellable) {
+            updates.add(new AppointmentRepositoryCustom.VersionedUpdate(appointment.getAppointmentId(),
+                    appointment.getVersion(), new Update()
+                            .set("status", AppointmentStatus.CANCELLED)
+                            .set("cancellationReason", trimmedReason)));
+        }
+        int applied = StageTimer.time("save", () -> appointmentRepository.updateAllIfVersion(updates));
+        List<Appointment> cancelled = applied == cancellable.size() ?
+                cancellable :
+                keepApplied(cancellable, AppointmentStatus.CANCELLED, result);
+
+        cancelled.forEach(appointment -> {
+            appointment.setCancellationReason(trimmedReason);
+            releaseEmergencySlot(appointment);
+        });
+        publishLifecycle(AppointmentLifecycleEvent.Type.CANCELLED, cancelled);
+        finishBulk(result, cancelled, emailService::sendAppointmentCancellations);
+        logger.info("Bulk-cancelled {} of {} appointments for doctor {} between {} and {}",
+                result.getUpdated(), inRange.size(), doctorId, from, to);
+        return result;
+    }
+
+    @Override
+    public BulkOperationResult shiftDoctorAppointments(String doctorId, LocalDateTime from, LocalDateTime to,
+                                                       Integer minutes) {
+        validateBulkRange(from, to);
+        if (minutes == null || minutes == 0 || Math.abs(minutes) > MAX_BULK_SHIFT_MINUTES) {
+            throw new ValidationException(String.format(
+                    "shiftMinutes must be non-zero and at most %d minutes either way", MAX_BULK_SHIFT_MINUTES));
+        }
+
+        // One read covering both the appointments to move and every booking they could land next to
+        LocalDateTime windowStart = (minutes < 0 ? from.plusMinutes(minutes) : from)
+                .minusMinutes(MAX_DURATION_MINUTES + BUFFER_MINUTES);
+        LocalDateTime windowEnd = (minutes > 0 ? to.plusMinutes(minutes) : to)
+                .plusMinutes(MAX_DURATION_MINUTES + BUFFER_MINUTES);
+        List<Appointment> nearby = StageTimer.time("read", () ->
+                appointmentRepository.findActiveByDoctorIdsBetween(List.of(doctorId), windowStart, windowEnd));
+
+        BulkOperationResult result = new BulkOperationResult(doctorId, "shift");
+        DoctorSchedule schedule = doctorScheduleService.getSchedule(doctorId);
+        LocalDateTime now = LocalDateTime.now();
+
+        // The patients' other doctors don't move, so a clash with them rules a mover out from the start
+        Map<String, List<Appointment>> patientsElsewhere = findPatientBookingsElsewhere(nearby.stream()
+                        .filter(a -> !a.getAppointmentDateTime().isBefore(from) && a.getAppointmentDateTime().isBefore(to))
+                        .map(Appointment::getPatientId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()),
+                doctorId, from.plusMinutes(minutes), to.plusMinutes(minutes + MAX_DURATION_MINUTES));
+
+        Set<Appointment> moving = new LinkedHashSet<>();
+        Set<Appointment> newDayClaims = new HashSet<>();
+        for (Appointment appointment : nearby) {
+            LocalDateTime start = appointment.getAppointmentDateTime();
+            if (start.isBefore(from) || !start.isBefore(to)) {
+                continue;
+            }
+            result.setMatched(result.getMatched() + 1);
+            LocalDateTime newStart = start.plusMinutes(minutes);
+            Appointment patientClash = findBlocking(
+                    patientsElsewhere.getOrDefault(appointment.getPatientId(), List.of()),
+                    newStart, newStart.plusMinutes(durationOf(appointment)));
+            if (appointment.getStatus() != null && !appointment.getStatus().canTransitionTo(AppointmentStatus.RESCHEDULED)) {
+                result.skip(appointment.getAppointmentId(), "Cannot be rescheduled from " + appointment.getStatus());
+            } else if (newStart.isBefore(now)) {
+                result.skip(appointment.getAppointmentId(), "Would move into the past");
+            } else if (!schedule.covers(newStart, durationOf(appointment))) {
+                result.skip(appointment.getAppointmentId(), String.format("Outside working hours on %s (%s)",
+                        newStart.toLocalDate().format(DATE_FORMATTER), schedule.describe(newStart.toLocalDate())));
+            } else if (patientClash != null) {
+                result.skip(appointment.getAppointmentId(),
+                        "Patient would overlap appointment " + patientClash.getAppointmentId());
+            } else if (movesEmergencyClaim(appointment, doctorId, newStart)
+                    && !emergencySlotPool.claim(doctorId, newStart.toLocalDate(), appointment.getAppointmentId())) {
+                result.skip(appointment.getAppointmentId(), "No emergency slots left on " +
+                        newStart.toLocalDate().format(DATE_FORMATTER));
+            } else {
+                if (movesEmergencyClaim(appointment, doctorId, newStart)) {
+                    newDayClaims.add(appointment);
+                }
+                moving.add(appointment);
+            }
+        }
+
+        // Everything moves by the same amount, so movers keep their spacing; only the bookings staying put can
+        // block them, and each mover that gets blocked stays put too, which can block others in turn
+        boolean blockedAny = true;
+        while (blockedAny && !moving.isEmpty()) {
+            blockedAny = false;
+            List<Appointment> staying = nearby.stream().filter(a -> !moving.contains(a)).collect(Collectors.toList());
+            for (Iterator<Appointment> it = moving.iterator(); it.hasNext(); ) {
+                Appointment appointment = it.next();
+                LocalDateTime newStart = appointment.getAppointmentDateTime().plusMinutes(minutes);
+                Appointment blocker = findBlocking(staying, newStart, newStart.plusMinutes(durationOf(appointment)));
+                if (blocker != null) {
+                    result.skip(appointment.getAppointmentId(), "Would overlap appointment " + blocker.getAppointmentId());
+                    it.remove();
+                    blockedAny = true;
+                }
+            }
+        }
+        if (moving.isEmpty()) {
+            settleShiftedEmergencyClaims(newDayClaims, Set.of(), minutes);
+            return result;
+        }
+
+        List<AppointmentRepositoryCustom.VersionedUpdate> updates = new ArrayList<>(moving.size());
+        for (Appointment appointment : moving) {
+            updates.add(new AppointmentRepositoryCustom.VersionedUpdate(
+                    appointment.getAppointmentId(), appointment.getVersion(),
+                    setSlot(new Update(), appointment.getAppointmentDateTime().plusMinutes(minutes), durationOf(appointment))
+                            .set("status", AppointmentStatus.RESCHEDULED)));
+        }
+        List<Appointment> shifted;
+        try {
+            int applied = StageTimer.time("save", () -> appointmentRepository.updateAllIfVersion(updates));
+            List<Appointment> candidates = new ArrayList<>(moving);
+            shifted = applied == candidates.size() ?
+                    candidates :
+                    keepApplied(candidates, AppointmentStatus.RESCHEDULED, result);
+        } catch (RuntimeException e) {
+            settleShiftedEmergencyClaims(newDayClaims, Set.of(), minutes);
+            throw e;
+        }
+        settleShiftedEmergencyClaims(newDayClaims, new HashSet<>(shifted), minutes);
+
+        List<AppointmentLifecycleEvent.Change> moves = new ArrayList<>(shifted.size());
+        for (Appointment appointment : shifted) {
+            AppointmentLifecycleEvent.Slot previous = slotOf(appointment);
+            appointment.setAppointmentDateTime(appointment.getAppointmentDateTime().plusMinutes(minutes));
+            appointment.updateTimeBounds(defaultDuration);
+            moves.add(new AppointmentLifecycleEvent.Change(appointment.getAppointmentId(), slotOf(appointment), previous));
+        }
+        if (!moves.isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentLifecycleEvent(AppointmentLifecycleEvent.Type.RESCHEDULED, moves));
+        }
+        finishBulk(result, shifted, emailService::sendAppointmentReschedules);
+        logger.info("Bulk-shifted {} of {} appointments for doctor {} by {} minutes",
+                result.getUpdated(), result.getMatched(), doctorId, minutes);
+        return result;
+    }
+
+    // Emergencies that moved give up the old day's claim; the rest give back the one taken on the new day
+    private void settleShiftedEmergencyClaims(Set<Appointment> newDayClaims, Set<Appointment> shifted, int minutes) {
+        for (Appointment appointment : newDayClaims) {
+            if (shifted.contains(appointment)) {
+                releaseEmergencySlot(appointment);
+            } else {
+                emergencySlotPool.release(appointment.getDoctorId(),
+                        appointment.getAppointmentDateTime().plusMinutes(minutes).toLocalDate(),
+                        appointment.getAppointmentId());
+            }
+        }
+    }
+
+    private void validateBulkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new ValidationException("Both from and to must be specified");
+        }
+        if (!from.isBefore(to)) {
+            throw new ValidationException("from must be before to");
+        }
+        if (Duration.between(from, to).toDays() > MAX_BULK_RANGE_DAYS) {
+            throw new ValidationException(String.format("The range may span at most %d days", MAX_BULK_RANGE_DAYS));
+        }
+    }
+
+    private int durationOf(Appointment appointment) {
+        return appointment.getDuration() != null ? appointment.getDuration() : defaultDuration;
+    }
+
+    // Same buffered-overlap rule as findDoctorConflicts, for bookings already in memory
+    private Appointment findBlocking(List<Appointment> bookings, LocalDateTime start, LocalDateTime end) {
+        for (Appointment booking : bookings) {
+            if (booking.getBufferedEnd() == null) {
+                booking.updateTimeBounds(defaultDuration);  // not backfilled yet
+            }
+            if (start.isBefore(booking.getBufferedEnd()) && end.isAfter(booking.getBufferedStart())) {
+                return booking;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The patients' active bookings with other doctors that could overlap {@code [from, to)}, grouped by patient.
+     * Their buffered bounds are narrowed to the appointment itself, so findBlocking applies the patient-side
+     * rule to them: a patient only can't be in two places at once, the doctor buffer doesn't apply.
+     */
+    private Map<String, List<Appointment>> findPatientBookingsElsewhere(Collection<String> patientIds, String doctorId,
+                                                                       LocalDateTime from, LocalDateTime to) {
+        if (patientIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Appointment> bookings = StageTimer.time("conflict", () -> appointmentRepository
+                .findActiveByPatientIdsBetween(patientIds, from.minusMinutes(MAX_DURATION_MINUTES), to));
+
+        Map<String, List<Appointment>> byPatient = new HashMap<>();
+        for (Appointment booking : bookings) {
+            if (doctorId.equals(booking.getDoctorId())) {
+                continue;
+            }
+            if (booking.getEndDateTime() == null) {
+                booking.updateTimeBounds(defaultDuration);  // not backfilled yet
+            }
+            booking.setBufferedStart(booking.getAppointmentDateTime());
+            booking.setBufferedEnd(booking.getEndDateTime());
+            byPatient.computeIfAbsent(booking.getPatientId(), id -> new ArrayList<>()).add(booking);
+        }
+        return byPatient;
+    }
+
+    /**
+     * Rare path for a bulk write that changed fewer documents than planned: reads the candidates back and keeps
+     * those this write moved into {@code target}, i.e. exactly one version later, reporting the rest as skipped.
+     */
+    private List<Appointment> keepApplied(List<Appointment> candidates, AppointmentStatus target,
+                                          BulkOperationResult result) {
+        Map<String, Appointment> current = appointmentRepository.findByAppointmentIdIn(candidates.stream()
+                        .map(Appointment::getAppointmentId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Appointment::getAppointmentId, a -> a, (a, b) -> a));
+
+        List<Appointment> applied = new ArrayList<>();
+        for (Appointment candidate : candidates) {
+            Appointment stored = current.get(candidate.getAppointmentId());
+            // Documents written before versioning had none; the write's $inc made that 1
+            long expected = (candidate.getVersion() != null ? candidate.getVersion() : 0) + 1;
+            boolean ours = stored != null && stored.getStatus() == target
+                    && stored.getVersion() != null && stored.getVersion() == expected;
+            if (ours) {
+                applied.add(candidate);
+            } else {
+                result.skip(candidate.getAppointmentId(), "Modified by another request");
+            }
+        }
+        return applied;
+    }
+
+    private void finishBulk(BulkOperationResult result, List<Appointment> changed,
+                            Consumer<List<EmailNotification>> sender) {
+        List<String> ids = changed.stream().map(Appointment::getAppointmentId).collect(Collectors.toList());
+        result.setUpdated(ids.size());
+        result.setUpdatedAppointmentIds(ids);
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENTS, ids);
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENT_STATS, CacheConfig.STATS_KEY);
+
+        List<EmailNotification> notifications = changed.stream()
+                .filter(a -> a.getPatientEmail() != null && !a.getPatientEmail().isBlank())
+                .map(a -> new EmailNotification(a.getPatientEmail(), a.getPatientName(), a.getDoctorName(),
+                        a.getAppointmentDateTime().format(DATE_FORMATTER),
+                        a.getAppointmentDateTime().format(TIME_FORMATTER_12HR),
+                        a.getCancellationReason()))
+                .collect(Collectors.toList());
+        if (!notifications.isEmpty()) {
+            StageTimer.time("email", () -> sender.accept(notifications));
+        }
+        result.setNotificationsQueued(notifications.size());
+    }
+
     @Override
     public AppointmentDTO revisitAppointment(String appointmentId, LocalDateTime newDateTime, String reason) {
         logger.info("Creating revisit appointment for original appointment: {}", appointmentId);
@@ -326,10 +1052,10 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Original appointment not found"));
 
         // Validate the new appointment time
-        validateAppointmentTime(newDateTime, original.getDuration());
+        validateAppointmentTime(original.getDoctorId(), newDateTime, original.getDuration());
 
         // Check for conflicts using existing doctor conflict checking
-        checkForRevisitConflicts(original.getDoctorId(), newDateTime, original.getDuration());
+        checkForRevisitConflicts(original.getDoctorId(), original.getPatientId(), newDateTime, original.getDuration());
 
         // Create new revisit appointment
         Appointment revisit = new Appointment();
@@ -369,57 +1095,257 @@ public class AppointmentServiceImpl implements AppointmentService {
     */
 
         // ✅ REPLACE WITH THIS FIXED CODE:
+        copyPatientDetails(revisit, original);
+        // ========================================================
+
+        // ✅ FIX: Improved doctor data retrieval
+        revisit.setDoctorName(resolveDoctorName(original));
+
+        // ✅ FIX: Copy any additional fields that might be missing
+        copyAdditionalFieldsFromOriginal(revisit, original);
+
+        // Save the new revisit appointment
+        Appointment saved = StageTimer.time("save", () -> appointmentRepository.save(revisit));
+        publishInvalidation(saved.getAppointmentId());
+        publishLifecycle(AppointmentLifecycleEvent.Type.CREATED, List.of(saved));
+
+        // ✅ FIX: Add validation before sending email
+        if (saved.getPatientEmail() != null && !saved.getPatientEmail().trim().isEmpty()) {
+            StageTimer.time("email", () -> sendRevisitEmail(saved));
+            logger.info("Revisit appointment created and email sent successfully with ID: {}", saved.getAppointmentId());
+        } else {
+            logger.error("Cannot send revisit email - patient email is missing for appointment: {}", saved.getAppointmentId());
+        }
+
+        return convertToDTO(saved);
+    }
+
+    @Override
+    public SeriesResult createSeries(String appointmentId, SeriesRequest request) {
+        int occurrences = request.getOccurrences() != null ? request.getOccurrences() : 0;
+        int intervalDays = request.getIntervalDays() != null ? request.getIntervalDays() : 0;
+        if (occurrences < 1 || occurrences > MAX_SERIES_OCCURRENCES) {
+            throw new ValidationException(String.format("occurrences must be between 1 and %d", MAX_SERIES_OCCURRENCES));
+        }
+        if (intervalDays < 1 || intervalDays > 365) {
+            throw new ValidationException("intervalDays must be between 1 and 365");
+        }
+
+        Appointment original = getExistingAppointment(appointmentId);
+        String doctorId = original.getDoctorId();
+        int duration = durationOf(original);
+        LocalDateTime first = request.getFirstDateTime() != null ?
+                request.getFirstDateTime() :
+                original.getAppointmentDateTime().plusDays(intervalDays);
+        LocalDateTime last = first.plusDays((long) intervalDays * (occurrences - 1));
+
+        // Every occurrence, plus room to look for alternatives after the last one, in one range query
+        List<Appointment> busy = new ArrayList<>(StageTimer.time("conflict", () -> appointmentRepository
+                .findActiveByDoctorIdsBetween(List.of(doctorId),
+                        first.minusMinutes(MAX_DURATION_MINUTES + BUFFER_MINUTES),
+                        last.plusDays(SERIES_ALTERNATIVE_SEARCH_DAYS + 1))));
+        // The patient's other appointments block occurrences and alternatives the same way
+        if (original.getPatientId() != null) {
+            busy.addAll(findPatientBookingsElsewhere(Set.of(original.getPatientId()), doctorId,
+                            first, last.plusDays(SERIES_ALTERNATIVE_SEARCH_DAYS + 1))
+                    .getOrDefault(original.getPatientId(), List.of()));
+        }
+        DoctorSchedule schedule = doctorScheduleService.getSchedule(doctorId);
+        LocalDateTime now = LocalDateTime.now();
+
+        SeriesResult result = new SeriesResult();
+        result.setOriginalAppointmentId(appointmentId);
+        result.setRequested(occurrences);
+
+        List<Appointment> accepted = new ArrayList<>();
+        for (int i = 0; i < occurrences; i++) {
+            LocalDateTime start = first.plusDays((long) intervalDays * i);
+            SeriesResult.Occurrence occurrence = new SeriesResult.Occurrence(i + 1, start, null, null, null, List.of());
+            result.getOccurrences().add(occurrence);
+
+            Appointment blocker = findBlocking(busy, start, start.plusMinutes(duration));
+            if (start.isBefore(now)) {
+                occurrence.setStatus(SeriesResult.OccurrenceStatus.IN_PAST);
+                occurrence.setMessage("Requested time is in the past");
+            } else if (!schedule.covers(start, duration)) {
+                occurrence.setStatus(SeriesResult.OccurrenceStatus.OUTSIDE_WORKING_HOURS);
+                occurrence.setMessage(String.format("Working hours on %s: %s",
+                        start.toLocalDate().format(DATE_FORMATTER), schedule.describe(start.toLocalDate())));
+            } else if (blocker != null) {
+                occurrence.setStatus(SeriesResult.OccurrenceStatus.CONFLICT);
+                if (blocker.getAppointmentId() == null) {
+                    occurrence.setMessage("Overlaps an earlier occurrence of this series");
+                } else if (!doctorId.equals(blocker.getDoctorId())) {
+                    occurrence.setMessage("The patient already has appointment " + blocker.getAppointmentId() +
+                            (blocker.getDoctorName() != null ? " with " + blocker.getDoctorName() : ""));
+                } else {
+                    occurrence.setMessage("Overlaps appointment " + blocker.getAppointmentId());
+                }
+            } else {
+                Appointment booking = new Appointment();
+                booking.setAppointmentDateTime(start);
+                booking.setDuration(duration);
+                booking.updateTimeBounds(duration);
+                accepted.add(booking);
+                // Later occurrences and alternatives must also keep clear of this one
+                busy.add(booking);
+                continue;
+            }
+            occurrence.setAlternatives(findAlternatives(schedule, busy, start.isBefore(now) ? now : start, duration));
+        }
+
+        boolean blocked = accepted.size() < occurrences;
+        if (accepted.isEmpty() || (blocked && request.isAllOrNothing())) {
+            result.getOccurrences().stream()
+                    .filter(occurrence -> occurrence.getStatus() == null)
+                    .forEach(occurrence -> {
+                        occurrence.setStatus(SeriesResult.OccurrenceStatus.NOT_BOOKED);
+                        occurrence.setMessage("Not booked because other occurrences are unavailable");
+                    });
+            return result;
+        }
+
+        // The remote lookups are shared by every occurrence
+        Appointment template = new Appointment();
+        copyPatientDetails(template, original);
+        String doctorName = resolveDoctorName(original);
+        String reason = request.getReason() != null && !request.getReason().isBlank() ?
+                request.getReason().trim() :
+                "Follow-up consultation";
+
+        List<String> ids = generateAppointmentIds(accepted.size());
+        String previousId = appointmentId;
+        for (int i = 0; i < accepted.size(); i++) {
+            Appointment booking = accepted.get(i);
+            booking.setAppointmentId(ids.get(i));
+            booking.setPreviousAppointmentId(previousId);
+            booking.setDoctorId(doctorId);
+            booking.setDoctorName(doctorName);
+            booking.setDepartment(original.getDepartment());
+            booking.setPatientId(original.getPatientId());
+            booking.setPatientName(template.getPatientName());
+            booking.setPatientEmail(template.getPatientEmail());
+            booking.setPatientAge(template.getPatientAge());
+            booking.setPatientPhone(template.getPatientPhone());
+            booking.setRevisitReason(reason);
+            booking.setStatus(AppointmentStatus.PENDING);
+            copyAdditionalFieldsFromOriginal(booking, original);
+            previousId = booking.getAppointmentId();
+        }
+
+        List<Appointment> saved = StageTimer.time("save", () -> appointmentRepository.insert(accepted));
+        Map<LocalDateTime, Appointment> savedByTime = saved.stream()
+                .collect(Collectors.toMap(Appointment::getAppointmentDateTime, a -> a));
+        for (SeriesResult.Occurrence occurrence : result.getOccurrences()) {
+            Appointment booking = savedByTime.get(occurrence.getRequestedDateTime());
+            if (occurrence.getStatus() == null && booking != null) {
+                occurrence.setStatus(SeriesResult.OccurrenceStatus.BOOKED);
+                occurrence.setAppointment(convertToDTO(booking));
+            }
+        }
+        result.setBooked(saved.size());
+
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENTS,
+                saved.stream().map(Appointment::getAppointmentId).collect(Collectors.toList()));
+        cacheInvalidationBus.publish(CacheConfig.APPOINTMENT_STATS, CacheConfig.STATS_KEY);
+        publishLifecycle(AppointmentLifecycleEvent.Type.CREATED, saved);
+
+        if (template.getPatientEmail() != null && !template.getPatientEmail().isBlank()) {
+            List<String> when = saved.stream()
+                    .map(a -> a.getAppointmentDateTime().format(DATE_FORMATTER) + " at " +
+                            a.getAppointmentDateTime().format(TIME_FORMATTER_12HR))
+                    .collect(Collectors.toList());
+            StageTimer.time("email", () -> emailService.sendAppointmentSeries(
+                    template.getPatientEmail(), template.getPatientName(), doctorName, when, reason));
+        }
+
+        logger.info("Booked {} of {} series occurrences following appointment {}",
+                saved.size(), occurrences, appointmentId);
+        return result;
+    }
+
+    // Next free starts at or after the requested time within the doctor's hours, skipping buffered bookings
+    private List<LocalDateTime> findAlternatives(DoctorSchedule schedule, List<Appointment> busy,
+                                                 LocalDateTime from, int duration) {
+        List<LocalDateTime> alternatives = new ArrayList<>(SERIES_ALTERNATIVES);
+        LocalDateTime limit = from.toLocalDate().plusDays(SERIES_ALTERNATIVE_SEARCH_DAYS + 1L).atStartOfDay();
+        LocalDateTime candidate = schedule.nextStartAtOrAfter(from, duration, SERIES_ALTERNATIVE_SEARCH_DAYS);
+        while (candidate != null && candidate.isBefore(limit) && alternatives.size() < SERIES_ALTERNATIVES) {
+            Appointment blocker = findBlocking(busy, candidate, candidate.plusMinutes(duration));
+            LocalDateTime next;
+            if (blocker == null) {
+                alternatives.add(candidate);
+                next = candidate.plusMinutes(duration + BUFFER_MINUTES);
+            } else {
+                next = blocker.getBufferedEnd();
+            }
+            candidate = schedule.nextStartAtOrAfter(next, duration, SERIES_ALTERNATIVE_SEARCH_DAYS);
+        }
+        return alternatives;
+    }
+
+    // Random ids for a batch, checked for collisions with one query instead of one per id
+    private List<String> generateAppointmentIds(int count) {
+        try (StageTimer.Stage ignored = StageTimer.stage("id")) {
+            Set<String> ids = new LinkedHashSet<>();
+            while (ids.size() < count) {
+                Set<String> candidates = new LinkedHashSet<>();
+                while (candidates.size() < count - ids.size()) {
+                    String id = "APP-" + String.format("%04d", random.nextInt(10000));
+                    if (!ids.contains(id)) {
+                        candidates.add(id);
+                    }
+                }
+                appointmentRepository.findByAppointmentIdIn(candidates)
+                        .forEach(taken -> candidates.remove(taken.getAppointmentId()));
+                if (!candidates.isEmpty()) {
+                    appointmentRepository.findArchived(Criteria.where("appointmentId").in(candidates))
+                            .forEach(taken -> candidates.remove(taken.getAppointmentId()));
+                }
+                ids.addAll(candidates);
+            }
+            return new ArrayList<>(ids);
+        }
+    }
+
+    // Fresh patient details from the patient service, falling back to what the original appointment recorded
+    private void copyPatientDetails(Appointment target, Appointment original) {
         try {
-            ApiResponse<PatientDTO> patientResponse = patientFeign.getPatientById(original.getPatientId());
+            ApiResponse<PatientDTO> patientResponse = StageTimer.time("patient", () ->
+                    patientFeign.getPatientById(original.getPatientId()));
             if (patientResponse != null && patientResponse.isSuccess() && patientResponse.getData() != null) {
                 PatientDTO patient = patientResponse.getData();
-                revisit.setPatientName(patient.getFullName());
-                revisit.setPatientEmail(patient.getEmail());
+                target.setPatientName(patient.getFullName());
+                target.setPatientEmail(patient.getEmail());
 
                 // ✅ FIX: Use proper method and handle potential null values
                 if (patient.getAge() != null) {
-                    revisit.setPatientAge(patient.getAge());  // Use setPatientAge instead of setAge
+                    target.setPatientAge(patient.getAge());  // Use setPatientAge instead of setAge
                 }
                 if (patient.getPhoneNumber() != null) {
-                    revisit.setPatientPhone(patient.getPhoneNumber());  // Use setPatientPhone
+                    target.setPatientPhone(patient.getPhoneNumber());  // Use setPatientPhone
                 }
 
-                logger.info("Successfully fetched patient details for revisit: {}", patient.getFullName());
+                logger.info("Successfully fetched patient details for follow-up: {}", patient.getFullName());
             } else {
                 logger.warn("Patient service returned invalid response, using original appointment data");
-                copyPatientDataFromOriginal(revisit, original);
+                copyPatientDataFromOriginal(target, original);
             }
         } catch (Exception e) {
-            logger.error("Failed to fetch patient details for revisit, using original appointment data: {}", e.getMessage());
-            copyPatientDataFromOriginal(revisit, original);
+            logger.error("Failed to fetch patient details for follow-up, using original appointment data: {}", e.getMessage());
+            copyPatientDataFromOriginal(target, original);
         }
-        // ========================================================
+    }
 
-        // ✅ FIX: Improved doctor data retrieval
+    private String resolveDoctorName(Appointment original) {
         try {
-            DoctorDTO doctor = fetchDoctorDetails(original.getDoctorId());
-            revisit.setDoctorName(doctor.getDoctorName());
-            logger.info("Successfully fetched doctor details for revisit: {}", doctor.getDoctorName());
+            DoctorDTO doctor = StageTimer.time("doctor", () -> fetchDoctorDetails(original.getDoctorId()));
+            logger.info("Successfully fetched doctor details for follow-up: {}", doctor.getDoctorName());
+            return doctor.getDoctorName();
         } catch (Exception e) {
-            logger.error("Failed to fetch doctor details for revisit, using original appointment data: {}", e.getMessage());
-            revisit.setDoctorName(original.getDoctorName());
-        }
-
-        // ✅ FIX: Copy any additional fields that might be missing
-        copyAdditionalFieldsFromOriginal(revisit, original);
-
-        // Save the new revisit appointment
-        Appointment saved = appointmentRepository.save(revisit);
-
-        // ✅ FIX: Add validation before sending email
-        if (saved.getPatientEmail() != null && !saved.getPatientEmail().trim().isEmpty()) {
-            sendRevisitEmail(saved);
-            logger.info("Revisit appointment created and email sent successfully with ID: {}", saved.getAppointmentId());
-        } else {
-            logger.error("Cannot send revisit email - patient email is missing for appointment: {}", saved.getAppointmentId());
+            logger.error("Failed to fetch doctor details for follow-up, using original appointment data: {}", e.getMessage());
+            return original.getDoctorName();
         }
-
-        return convertToDTO(saved);
     }
 
     // In the revisitAppointment method, replace these lines:
@@ -447,45 +1373,84 @@ public class AppointmentServiceImpl implements AppointmentService {
         // Add other fields as needed
     }
     // ✅ NEW: Check for revisit appointment conflicts
-    private void checkForRevisitConflicts(String doctorId, LocalDateTime newDateTime, int duration) {
-        LocalDateTime requestedEnd = newDateTime.plusMinutes(duration);
-        LocalDateTime startOfDay = newDateTime.toLocalDate().atStartOfDay();
-        LocalDateTime endOfDay = startOfDay.plusDays(1).minusNanos(1);
-
-        List<Appointment> existingAppointments = appointmentRepository
-                .findByDoctorIdAndDate(doctorId, startOfDay, endOfDay);
-
-        for (Appointment existing : existingAppointments) {
-            LocalDateTime existingStart = existing.getAppointmentDateTime();
-            LocalDateTime existingEnd = existingStart.plusMinutes(existing.getDuration());
-            LocalDateTime bufferStart = existingStart.minusMinutes(BUFFER_MINUTES);
-            LocalDateTime bufferEnd = existingEnd.plusMinutes(BUFFER_MINUTES);
-
-            if (newDateTime.isBefore(bufferEnd) && requestedEnd.isAfter(bufferStart)) {
-                LocalDateTime suggestedTime = calculateSuggestedTime(bufferEnd);
-                String formattedTime = formatSuggestedTime(suggestedTime);
-                
-                throw new ConflictException(String.format(
-                    "Doctor is not available at the requested time. The next available slot is %s",
-                    formattedTime));
-            }
+    private void checkForRevisitConflicts(String doctorId, String patientId, LocalDateTime newDateTime, int duration) {
+        List<Appointment> conflicts = findBookingConflicts(null, doctorId, patientId,
+                newDateTime, newDateTime.plusMinutes(duration));
+
+        Optional<Appointment> conflict = conflicts.stream()
+                .filter(existing -> doctorId.equals(existing.getDoctorId()))
+                .findFirst();
+        if (conflict.isPresent()) {
+            LocalDateTime suggestedTime = calculateSuggestedTime(doctorId, conflict.get().getBufferedEnd(), duration);
+            String formattedTime = formatSuggestedTime(suggestedTime);
+
+            throw new ConflictException(String.format(
+                "Doctor is not available at the requested time. The next available slot is %s",
+                formattedTime));
         }
+        rejectPatientOverlap(conflicts, doctorId);
+        checkEmergencyReserve(doctorId, null, newDateTime, duration);
     }
 
     @Override
     public AppointmentDTO markCompleted(String appointmentId) {
         logger.info("Marking appointment as completed: {}", appointmentId);
 
-        Appointment appointment = getExistingAppointment(appointmentId);
-        appointment.setStatus(AppointmentStatus.COMPLETED);
-        appointment.setUpdatedAt(LocalDateTime.now());
-
-        Appointment completed = appointmentRepository.save(appointment);
-        sendCompletionEmail(completed);
+        Appointment completed = applyTransition(appointmentId, AppointmentStatus.COMPLETED, new Update());
+        publishLifecycle(AppointmentLifecycleEvent.Type.COMPLETED, List.of(completed));
+        StageTimer.time("email", () -> sendCompletionEmail(completed));
 
         return convertToDTO(completed);
     }
 
+    @Override
+    public AppointmentDTO markNoShow(String appointmentId) {
+        logger.info("Marking appointment as no-show: {}", appointmentId);
+
+        Appointment missed = applyTransition(appointmentId, AppointmentStatus.NO_SHOW, new Update());
+        publishLifecycle(AppointmentLifecycleEvent.Type.NO_SHOW, List.of(missed));
+
+        return convertToDTO(missed);
+    }
+
+    @Override
+    public Optional<ResourceVersion> getAppointmentVersion(String appointmentId) {
+        Query query = Query.query(Criteria.where("appointmentId").is(appointmentId));
+        query.fields().include("updatedAt").include("version");
+
+        Document projection = mongoOperations.findOne(
+                query, Document.class, mongoOperations.getCollectionName(Appointment.class));
+        if (projection == null) {
+            return Optional.empty();
+        }
+        // Every write bumps version, so it tells apart two writes within the same millisecond of updatedAt
+        long version = projection.get("version") instanceof Number number ? number.longValue() : 0;
+        return Optional.of(new ResourceVersion(version, toLocalDateTime(projection.getDate("updatedAt"))));
+    }
+
+    @Override
+    public ResourceVersion getUpcomingAppointmentsByDoctorVersion(String doctorId) {
+        // Same filter as getUpcomingAppointmentsByDoctor, reduced to count + max(updatedAt) on the server
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("doctorId").is(doctorId)
+                        .and("appointmentDateTime").gt(LocalDateTime.now())),
+                Aggregation.group().count().as("count").max("updatedAt").as("lastModified")
+        );
+
+        Document result = mongoOperations.aggregate(aggregation, Appointment.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return new ResourceVersion(0, null);
+        }
+        return new ResourceVersion(
+                result.get("count", Number.class).longValue(),
+                toLocalDateTime(result.getDate("lastModified")));
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+    }
+
     @Override
     public List<AppointmentDTO> getUpcomingAppointmentsByPatient(String patientId) {
         validatePatientExists(patientId);
@@ -514,10 +1479,16 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .findByPatientIdAndStatus(patientId, AppointmentStatus.COMPLETED.name());
         List<Appointment> cancelled = appointmentRepository
                 .findByPatientIdAndStatus(patientId, AppointmentStatus.CANCELLED.name());
+        List<Appointment> missed = appointmentRepository
+                .findByPatientIdAndStatus(patientId, AppointmentStatus.NO_SHOW.name());
 
         List<Appointment> history = new ArrayList<>();
         history.addAll(completed);
         history.addAll(cancelled);
+        history.addAll(missed);
+        history.addAll(appointmentRepository.findArchived(Criteria.where("patientId").is(patientId)
+                .and("status").in(AppointmentStatus.COMPLETED.name(), AppointmentStatus.CANCELLED.name(),
+                        AppointmentStatus.NO_SHOW.name())));
 
         return history.stream()
                 .map(this::convertToDTO)
@@ -532,10 +1503,16 @@ public class AppointmentServiceImpl implements AppointmentService {
                 .findByDoctorIdAndStatus(doctorId, AppointmentStatus.COMPLETED.name());
         List<Appointment> cancelled = appointmentRepository
                 .findByDoctorIdAndStatus(doctorId, AppointmentStatus.CANCELLED.name());
+        List<Appointment> missed = appointmentRepository
+                .findByDoctorIdAndStatus(doctorId, AppointmentStatus.NO_SHOW.name());
 
         List<Appointment> history = new ArrayList<>();
         history.addAll(completed);
         history.addAll(cancelled);
+        history.addAll(missed);
+        history.addAll(appointmentRepository.findArchived(Criteria.where("doctorId").is(doctorId)
+                .and("status").in(AppointmentStatus.COMPLETED.name(), AppointmentStatus.CANCELLED.name(),
+                        AppointmentStatus.NO_SHOW.name())));
 
         return history.stream()
                 .map(this::convertToDTO)
@@ -543,20 +1520,38 @@ public class AppointmentServiceImpl implements AppointmentService {
     }
 
     @Override
+    @Cacheable(value = CacheConfig.APPOINTMENT_STATS, key = "'" + CacheConfig.STATS_KEY + "'")
     public StatsDTO getAppointmentStats() {
         StatsDTO stats = new StatsDTO();
-        stats.setTotalAppointments(appointmentRepository.count());
+        // Archived appointments are all COMPLETED, CANCELLED or NO_SHOW, so only those counts need the cold tier
+        long archivedCompleted = appointmentRepository.countArchived(
+                Criteria.where("status").is(AppointmentStatus.COMPLETED.name()));
+        long archivedCancelled = appointmentRepository.countArchived(
+                Criteria.where("status").is(AppointmentStatus.CANCELLED.name()));
+        long archivedNoShow = appointmentRepository.countArchived(
+                Criteria.where("status").is(AppointmentStatus.NO_SHOW.name()));
+
+        stats.setTotalAppointments(appointmentRepository.count() + archivedCompleted + archivedCancelled
+                + archivedNoShow);
         stats.setPendingAppointments(appointmentRepository.countByStatus(AppointmentStatus.PENDING.name()));
         stats.setConfirmedAppointments(appointmentRepository.countByStatus(AppointmentStatus.CONFIRMED.name()));
-        stats.setCompletedAppointments(appointmentRepository.countByStatus(AppointmentStatus.COMPLETED.name()));
-        stats.setCancelledAppointments(appointmentRepository.countByStatus(AppointmentStatus.CANCELLED.name()));
+        stats.setCompletedAppointments(
+                appointmentRepository.countByStatus(AppointmentStatus.COMPLETED.name()) + archivedCompleted);
+        stats.setCancelledAppointments(
+                appointmentRepository.countByStatus(AppointmentStatus.CANCELLED.name()) + archivedCancelled);
         return stats;
     }
 
     @Override
     public boolean deleteAppointmentById(String appointmentId) {
-        if (appointmentRepository.existsByAppointmentId(appointmentId)) {
+        Optional<Appointment> existing = appointmentRepository.findByAppointmentId(appointmentId);
+        if (existing.isPresent()) {
             appointmentRepository.deleteByAppointmentId(appointmentId);
+            publishInvalidation(appointmentId);
+            // A cancelled appointment's time was already given back
+            if (existing.get().getStatus() != AppointmentStatus.CANCELLED) {
+                publishLifecycle(AppointmentLifecycleEvent.Type.DELETED, List.of(existing.get()));
+            }
             logger.info("Appointment {} deleted successfully", appointmentId);
             return true;
         }
@@ -565,12 +1560,9 @@ public class AppointmentServiceImpl implements AppointmentService {
 
     @Override
     public Appointment confirmAppointment(String appointmentId) {
-        Appointment appointment = getExistingAppointment(appointmentId);
-        appointment.setStatus(AppointmentStatus.CONFIRMED);
-        appointment.setUpdatedAt(LocalDateTime.now());
-
-        Appointment confirmed = appointmentRepository.save(appointment);
-        sendConfirmationEmail(confirmed);
+        Appointment confirmed = applyTransition(appointmentId, AppointmentStatus.CONFIRMED, new Update());
+        publishLifecycle(AppointmentLifecycleEvent.Type.CONFIRMED, List.of(confirmed));
+        StageTimer.time("email", () -> sendConfirmationEmail(confirmed));
 
         return confirmed;
     }
@@ -600,6 +1592,54 @@ public class AppointmentServiceImpl implements AppointmentService {
         }
     }
 
+    @Override
+    public PageResponse<AppointmentDTO> textSearch(String text, String namePrefix, String status, String doctorId,
+                                                   String startDate, String endDate, int page, int size) {
+        boolean hasText = text != null && !text.isBlank();
+        boolean hasPrefix = namePrefix != null && !namePrefix.isBlank();
+        if (!hasText && !hasPrefix) {
+            throw new ValidationException("Either a search query (q) or a name prefix (name) is required");
+        }
+
+        AppointmentSearchSpec spec = new AppointmentSearchSpec();
+        spec.setText(text);
+        spec.setName(namePrefix);
+        spec.setStatus(status != null && !status.isEmpty() ? List.of(status) : null);
+        spec.setDoctorId(doctorId);
+        spec.setStartDate(startDate != null ? LocalDate.parse(startDate) : null);
+        spec.setEndDate(endDate != null ? LocalDate.parse(endDate) : null);
+        if (!hasText) {
+            spec.setSortBy("appointmentDateTime");
+            spec.setDirection("desc");
+        }
+        spec.setPage(page);
+        spec.setSize(size);
+        return search(spec);
+    }
+
+    @Override
+    public AppointmentSearchResponse search(AppointmentSearchSpec spec) {
+        if (spec.getPage() < 0 || spec.getSize() < 1 || spec.getSize() > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format(
+                    "page must be >= 0 and size between 1 and %d", MAX_PAGE_SIZE));
+        }
+        if (spec.getSortBy() != null && !spec.getSortBy().isBlank() && !SORTABLE_FIELDS.contains(spec.getSortBy())) {
+            throw new ValidationException("Cannot sort by '" + spec.getSortBy() + "'. Allowed: " + SORTABLE_FIELDS);
+        }
+
+        AppointmentRepositoryCustom.SearchPage result = appointmentRepository.search(spec);
+
+        AppointmentSearchResponse response = new AppointmentSearchResponse();
+        response.setContent(result.content().stream().map(this::convertToDTO).collect(Collectors.toList()));
+        response.setPage(spec.getPage());
+        response.setSize(spec.getSize());
+        response.setTotalElements(result.total());
+        response.setTotalPages(PageResponse.totalPages(result.total(), spec.getSize()));
+        response.setCountsByStatus(result.countsByStatus());
+        response.setCountsByDepartment(result.countsByDepartment());
+        return response;
+    }
+
     @Override
     public List<Appointment> findByPatientIdAndStatus(String patientId, String status) {
         validatePatientExists(patientId);
@@ -609,9 +1649,11 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     public List<AppointmentDTO> getCompletedAppointmentsByDoctor(String doctorId) {
         validateDoctorExists(doctorId);
-        return appointmentRepository
-                .findByDoctorIdAndStatus(doctorId, AppointmentStatus.COMPLETED.name())
-                .stream()
+        List<Appointment> completed = new ArrayList<>(appointmentRepository
+                .findByDoctorIdAndStatus(doctorId, AppointmentStatus.COMPLETED.name()));
+        completed.addAll(appointmentRepository.findArchived(Criteria.where("doctorId").is(doctorId)
+                .and("status").is(AppointmentStatus.COMPLETED.name())));
+        return completed.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -619,9 +1661,11 @@ public class AppointmentServiceImpl implements AppointmentService {
     @Override
     public List<AppointmentDTO> getCompletedAppointmentsByPatient(String patientId) {
         validatePatientExists(patientId);
-        return appointmentRepository
-                .findByPatientIdAndStatus(patientId, AppointmentStatus.COMPLETED.name())
-                .stream()
+        List<Appointment> completed = new ArrayList<>(appointmentRepository
+                .findByPatientIdAndStatus(patientId, AppointmentStatus.COMPLETED.name()));
+        completed.addAll(appointmentRepository.findArchived(Criteria.where("patientId").is(patientId)
+                .and("status").is(AppointmentStatus.COMPLETED.name())));
+        return completed.stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,249 @@
+package meditrack.service.impl;
+
+import meditrack.dto.AvailableSlotDTO;
+import meditrack.exception.ResourceNotFoundException;
+import meditrack.exception.ValidationException;
+import meditrack.model.Appointment;
+import meditrack.model.Doctor;
+import meditrack.repository.AppointmentRepository;
+import meditrack.repository.DoctorRepository;
+import meditrack.service.AvailabilityService;
+import meditrack.service.DoctorScheduleService;
+import meditrack.service.EmergencySlotPool;
+import meditrack.util.DoctorSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+public class AvailabilityServiceImpl implements AvailabilityService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityServiceImpl.class);
+
+    @Autowired private AppointmentRepository appointmentRepository;
+    @Autowired private DoctorRepository doctorRepository;
+    @Autowired private DoctorScheduleService doctorScheduleService;
+    @Autowired private EmergencySlotPool emergencySlotPool;
+
+    @Value("${appointment.default-duration:30}")
+    private int defaultDuration;
+
+    @Value("${appointment.availability.horizon-days:14}")
+    private int horizonDays;
+
+    @Value("${appointment.availability.slot-step-minutes:30}")
+    private int slotStepMinutes;
+
+    @Value("${appointment.availability.max-results:50}")
+    private int maxResults;
+
+    @Override
+    public List<AvailableSlotDTO> findEarliestSlotsInDepartment(String department, LocalDate fromDate,
+                                                                int count, Integer duration) {
+        if (count < 1 || count > maxResults) {
+            throw new ValidationException(String.format("count must be between 1 and %d", maxResults));
+        }
+        int slotMinutes = duration != null ? duration : defaultDuration;
+        if (slotMinutes < 5 || slotMinutes > Appointment.MAX_DURATION_MINUTES) {
+            throw new ValidationException(String.format(
+                    "duration must be between 5 and %d minutes", Appointment.MAX_DURATION_MINUTES));
+        }
+
+        List<Doctor> doctors = doctorRepository.findByDepartmentIgnoreCase(department);
+        if (doctors.isEmpty()) {
+            throw new ResourceNotFoundException("No doctors found in department: " + department);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = fromDate != null && fromDate.atStartOfDay().isAfter(now) ? fromDate.atStartOfDay() : now;
+        LocalDateTime until = from.toLocalDate().plusDays(horizonDays).atStartOfDay();
+
+        // One query for the whole department instead of a lookup per doctor;
+        // starting a day early catches bookings whose buffer reaches into the window
+        List<String> doctorIds = doctors.stream().map(Doctor::getDoctorId).collect(Collectors.toList());
+        Map<String, List<Appointment>> bookingsByDoctor = appointmentRepository
+                .findActiveByDoctorIdsBetween(doctorIds, from.minusDays(1), until)
+                .stream()
+                .collect(Collectors.groupingBy(Appointment::getDoctorId));
+
+        // k-way merge of each doctor's lazily generated, already ordered free slots
+        PriorityQueue<SlotCursor> cursors = new PriorityQueue<>(
+                Comparator.comparing(SlotCursor::peek).thenComparing(cursor -> cursor.doctor.getDoctorId()));
+        for (Doctor doctor : doctors) {
+            SlotCursor cursor = new SlotCursor(doctor, doctorScheduleService.getSchedule(doctor),
+                    bookingsByDoctor.getOrDefault(doctor.getDoctorId(), List.of()),
+                    from, until, slotMinutes, slotStepMinutes, emergencySlotPool, defaultDuration);
+            if (cursor.peek() != null) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<AvailableSlotDTO> slots = new ArrayList<>(count);
+        while (slots.size() < count && !cursors.isEmpty()) {
+            SlotCursor cursor = cursors.poll();
+            LocalDateTime start = cursor.next();
+            slots.add(new AvailableSlotDTO(cursor.doctor.getDoctorId(), displayName(cursor.doctor),
+                    cursor.doctor.getDepartment(), start, start.plusMinutes(slotMinutes)));
+            if (cursor.peek() != null) {
+                cursors.add(cursor);
+            }
+        }
+
+        logger.debug("Found {} slots for department {} across {} doctors", slots.size(), department, doctors.size());
+        return slots;
+    }
+
+    private String displayName(Doctor doctor) {
+        return doctor.getDoctorName() != null ? doctor.getDoctorName() : doctor.getFullName();
+    }
+
+    /**
+     * Walks one doctor's slot grid in time order through the working intervals of their compiled schedule,
+     * skipping anything that overlaps an existing booking plus its buffer, the same rule the booking
+     * conflict check applies. Days where another booking would eat into the emergency reserve are skipped
+     * as the booking path would reject them.
+     */
+    private static final class SlotCursor {
+        private final Doctor doctor;
+        private final DoctorSchedule schedule;
+        private final List<LocalDateTime[]> busy;
+        private final LocalDateTime from;
+        private final LocalDateTime until;
+        private final int duration;
+        private final int step;
+        private final EmergencySlotPool emergencySlotPool;
+        private final int defaultDuration;
+        private final Map<LocalDate, Long> bookedMinutesByDay = new HashMap<>();
+
+        private int busyIndex;
+        private LocalDate day;
+        private int[] windows;
+        private int windowIndex;
+        private LocalDateTime candidate;
+        private boolean exhausted;
+        private boolean reserveChecked;
+
+        SlotCursor(Doctor doctor, DoctorSchedule schedule, List<Appointment> bookings,
+                   LocalDateTime from, LocalDateTime until, int duration, int step,
+                   EmergencySlotPool emergencySlotPool, int defaultDuration) {
+            this.doctor = doctor;
+            this.schedule = schedule;
+            this.from = from;
+            this.until = until;
+            this.duration = duration;
+            this.step = step;
+            this.emergencySlotPool = emergencySlotPool;
+            this.defaultDuration = defaultDuration;
+            this.day = from.toLocalDate();
+            this.windows = schedule.windowsOn(day);
+
+            this.busy = new ArrayList<>(bookings.size());
+            for (Appointment booking : bookings) {
+                if (booking.getBufferedEnd() == null || booking.getEndDateTime() == null) {
+                    booking.updateTimeBounds(defaultDuration);  // not backfilled yet
+                }
+                busy.add(new LocalDateTime[]{booking.getBufferedStart(), booking.getBufferedEnd()});
+                bookedMinutesByDay.merge(booking.getAppointmentDateTime().toLocalDate(),
+                        Duration.between(booking.getAppointmentDateTime(), booking.getEndDateTime()).toMinutes(),
+                        Long::sum);
+            }
+            busy.sort(Comparator.comparing(interval -> interval[0]));
+        }
+
+        LocalDateTime peek() {
+            if (!exhausted && candidate == null) {
+                advance(null);
+            }
+            return exhausted ? null : candidate;
+        }
+
+        LocalDateTime next() {
+            LocalDateTime slot = peek();
+            advance(slot.plusMinutes(step));
+            return slot;
+        }
+
+        private void advance(LocalDateTime start) {
+            candidate = start;
+            while (day.isBefore(until.toLocalDate())) {
+                if (windowIndex >= windows.length) {
+                    nextDay();
+                    continue;
+                }
+
+                LocalDateTime windowStart = day.atStartOfDay().plusMinutes(windows[windowIndex]);
+                LocalDateTime windowEnd = day.atStartOfDay().plusMinutes(windows[windowIndex + 1]);
+                candidate = alignToGrid(windowStart, candidate == null || candidate.isBefore(from) ? from : candidate);
+
+                LocalDateTime candidateEnd = candidate.plusMinutes(duration);
+                if (candidateEnd.isAfter(windowEnd)) {
+                    windowIndex += 2;
+                    continue;
+                }
+
+                LocalDateTime blockedUntil = findOverlapEnd(candidate, candidateEnd);
+                if (blockedUntil != null) {
+                    candidate = blockedUntil;
+                } else if (leavesEmergencyReserve(candidate)) {
+                    return;
+                } else {
+                    nextDay();
+                }
+            }
+            exhausted = true;
+        }
+
+        // Same rule as the booking path's reserve check. Later slots on the day are further from the release
+        // cutoff, so once the reserve applies and is too tight nothing else on that day can be booked either
+        private boolean leavesEmergencyReserve(LocalDateTime start) {
+            if (reserveChecked) {
+                return true;
+            }
+            int heldBack = emergencySlotPool.heldBackSlots(doctor.getDoctorId(), start);
+            if (heldBack == 0) {
+                return true;
+            }
+            reserveChecked = true;
+            long booked = bookedMinutesByDay.getOrDefault(day, 0L);
+            return booked + duration + (long) heldBack * defaultDuration <= schedule.workingMinutesOn(day);
+        }
+
+        private LocalDateTime findOverlapEnd(LocalDateTime start, LocalDateTime end) {
+            // Intervals ending before this candidate can never block a later one
+            while (busyIndex < busy.size() && !busy.get(busyIndex)[1].isAfter(start)) {
+                busyIndex++;
+            }
+            for (int i = busyIndex; i < busy.size() && busy.get(i)[0].isBefore(end); i++) {
+                if (busy.get(i)[1].isAfter(start)) {
+                    return busy.get(i)[1];
+                }
+            }
+            return null;
+        }
+
+        // Slots are laid out every step minutes from the start of each working interval
+        private LocalDateTime alignToGrid(LocalDateTime windowStart, LocalDateTime time) {
+            if (!time.isAfter(windowStart)) {
+                return windowStart;
+            }
+            long minutes = Duration.between(windowStart, time).toMinutes();
+            long offset = ((minutes + step - 1) / step) * step;
+            LocalDateTime aligned = windowStart.plusMinutes(offset);
+            return aligned.isBefore(time) ? aligned.plusMinutes(step) : aligned;
+        }
+
+        private void nextDay() {
+            day = day.plusDays(1);
+            windows = schedule.windowsOn(day);
+            windowIndex = 0;
+            candidate = null;
+            reserveChecked = false;
+        }
+    }
+}
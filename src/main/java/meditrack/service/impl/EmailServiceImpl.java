@@ -1,12 +1,16 @@
 package meditrack.service.impl;
 
+import meditrack.dto.EmailNotification;
 import meditrack.service.EmailService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,8 +19,14 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
 
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
 
 @Service
+@Lazy
 public class EmailServiceImpl implements EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
@@ -49,17 +59,7 @@ public class EmailServiceImpl implements EmailService {
             logger.info("Preparing to send email to: {} with subject: {}", toEmail, subject);
             logger.debug("Email body length: {} characters", body.length());
 
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            helper.setFrom(new InternetAddress(senderEmail, "MediTrack Health Center"));
-            helper.setTo(toEmail.trim());
-            helper.setSubject(subject.trim());
-            helper.setText(body, false); // false = plain text
-
-            message.setHeader("X-Priority", "3");
-            message.setHeader("X-Mailer", "MediTrack-v1.0");
-            message.setHeader("Return-Path", senderEmail);
+            MimeMessage message = createMessage(toEmail, subject, body);
 
             // Actually send the email
             mailSender.send(message);
@@ -74,6 +74,78 @@ public class EmailServiceImpl implements EmailService {
             logger.error("Unexpected error while sending email to {}: {}", toEmail, e.getMessage(), e);
         }
     }
+
+    private MimeMessage createMessage(String toEmail, String subject, String body)
+            throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(new InternetAddress(senderEmail, "MediTrack Health Center"));
+        helper.setTo(toEmail.trim());
+        helper.setSubject(subject.trim());
+        helper.setText(body, false); // false = plain text
+
+        message.setHeader("X-Priority", "3");
+        message.setHeader("X-Mailer", "MediTrack-v1.0");
+        message.setHeader("Return-Path", senderEmail);
+        return message;
+    }
+
+    @Async
+    @Override
+    public void sendAppointmentSeries(String to, String patientName, String doctorName, List<String> dateTimes,
+                                      String reason) {
+        String subject = "🔁 Follow-up Appointments Scheduled – MediTrack";
+        String body = buildSeriesBody(patientName, doctorName, dateTimes, reason);
+        sendEmail(to, subject, body);
+    }
+
+    @Async
+    @Override
+    public void sendAppointmentCancellations(List<EmailNotification> notifications) {
+        sendBatch("❌ Appointment Cancellation Notice – MediTrack", notifications, notification ->
+                buildCancellationBody(notification.getPatientName(), notification.getDoctorName(),
+                        notification.getDate(), notification.getTime(), notification.getReason()));
+    }
+
+    @Async
+    @Override
+    public void sendAppointmentReschedules(List<EmailNotification> notifications) {
+        sendBatch("🔄 Appointment Rescheduled Successfully – MediTrack", notifications, notification ->
+                buildRescheduleBody(notification.getPatientName(), notification.getDoctorName(),
+                        notification.getDate(), notification.getTime()));
+    }
+
+    // One SMTP connection and login for the whole batch instead of one per message
+    private void sendBatch(String subject, List<EmailNotification> notifications,
+                           Function<EmailNotification, String> bodyBuilder) {
+        List<MimeMessage> messages = new ArrayList<>(notifications.size());
+        for (EmailNotification notification : notifications) {
+            if (notification.getTo() == null || notification.getTo().isBlank()) {
+                logger.warn("Skipping batched email to {} - no email address", notification.getPatientName());
+                continue;
+            }
+            try {
+                messages.add(createMessage(notification.getTo(), subject, bodyBuilder.apply(notification)));
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                logger.error("Could not build batched email to {}: {}", notification.getTo(), e.getMessage());
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+            logger.info("Sent {} '{}' emails in one batch", messages.size(), subject);
+        } catch (MailSendException e) {
+            logger.error("{} of {} batched '{}' emails failed: {}",
+                    e.getFailedMessages().size(), messages.size(), subject, e.getMessage());
+        } catch (MailException e) {
+            logger.error("Batch of {} '{}' emails failed: {}", messages.size(), subject, e.getMessage(), e);
+        }
+    }
+
     @Override
     public void sendAppointmentBooked(String to, String patientName, String doctorName, String date, String time) {
         String subject = "📅 Appointment Booking Acknowledgement – MediTrack";
@@ -207,6 +279,32 @@ public class EmailServiceImpl implements EmailService {
         );
     }
 
+    private String buildSeriesBody(String patientName, String doctorName, List<String> dateTimes, String reason) {
+        StringBuilder schedule = new StringBuilder();
+        for (int i = 0; i < dateTimes.size(); i++) {
+            schedule.append(String.format("%d. 📅 %s\n", i + 1, dateTimes.get(i)));
+        }
+        return String.format(
+            "Dear %s,\n\n" +
+            "A series of %d follow-up appointments has been scheduled for you with %s.\n\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "FOLLOW-UP SCHEDULE\n" +
+            "━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n" +
+            "%s\n" +
+            "👨‍⚕️ Doctor: %s\n" +
+            "🏥 Location: MediTrack Health Center\n" +
+            "📋 Purpose: %s\n\n" +
+            "⏰ Please arrive at least 15 minutes early for each visit.\n\n" +
+            "If you need to reschedule or cancel any of these appointments, please contact us at 8610260854 or reply to this email at least 24 hours in advance.\n\n" +
+            "Warm Regards,\n" +
+            "MediTrack Team\n" +
+            "MediTrack Health Center\n" +
+            "📞 Phone: 8610260854\n" +
+            "📧 Email: meditrackhealthinfo@gmail.com",
+            patientName, dateTimes.size(), doctorName, schedule, doctorName, reason
+        );
+    }
+
     private String buildCancellationBody(String patientName, String doctorName, String date, String time, String reason) {
         return String.format(
             "Dear %s,\n\n" +
@@ -0,0 +1,32 @@
+package meditrack.service.impl;
+
+import meditrack.service.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Single-instance transport: evictions only reach this node's caches. Fine for tests and local runs.
+ */
+@Service
+@ConditionalOnProperty(name = "appointment.cache.invalidation.transport", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCacheInvalidationBus implements CacheInvalidationBus {
+
+    @Autowired
+    private LocalCacheEvictor localCacheEvictor;
+
+    @Override
+    public void publish(String cacheName, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            localCacheEvictor.evict(cacheName, keys);
+        }
+    }
+
+    @Override
+    public void publishAll(String cacheName) {
+        localCacheEvictor.evict(cacheName, List.of());
+    }
+}
@@ -0,0 +1,38 @@
+package meditrack.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Applies an invalidation to this instance's caches, whichever transport delivered it.
+ */
+@Component
+class LocalCacheEvictor {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    void evict(String cacheName, Collection<String> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (keys == null || keys.isEmpty()) {
+            cache.clear();
+            return;
+        }
+        for (String key : keys) {
+            cache.evict(key);
+        }
+    }
+
+    void evictAll() {
+        for (String cacheName : cacheManager.getCacheNames()) {
+            evict(cacheName, null);
+        }
+    }
+}
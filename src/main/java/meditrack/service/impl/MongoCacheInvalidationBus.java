@@ -0,0 +1,154 @@
+package meditrack.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import meditrack.model.CacheInvalidationMessage;
+import meditrack.service.CacheInvalidationBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cluster transport: every eviction is applied locally and appended to a capped collection that all
+ * instances follow with a tailable cursor. Works on standalone servers as well as replica sets.
+ * <p>
+ * After a reconnect the tail resumes behind the last message it saw, found by {@code _id} in the collection's
+ * insertion order. Timestamps, the ObjectId's included, come from each publisher's clock and can't be compared
+ * across instances.
+ */
+@Service
+@ConditionalOnProperty(name = "appointment.cache.invalidation.transport", havingValue = "mongo")
+public class MongoCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoCacheInvalidationBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile String lastSeenId;
+    private Disposable subscription;
+
+    @Autowired private MongoOperations mongoOperations;
+    @Autowired private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired private LocalCacheEvictor localCacheEvictor;
+
+    @Value("${appointment.cache.invalidation.collection-size-bytes:1048576}")
+    private long collectionSizeBytes;
+
+    @PostConstruct
+    void start() {
+        ensureCappedCollection();
+        // A tailable cursor on an empty capped collection is closed immediately, so make sure there's a document;
+        // it also marks where this instance starts listening
+        lastSeenId = send(null, List.of());
+
+        subscription = Flux.defer(this::tail)
+                .repeatWhen(completed -> completed.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> logger.warn("Cache invalidation tail failed, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .subscribe(this::receive);
+        logger.info("Listening for cache invalidations as node {}", nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public void publish(String cacheName, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        localCacheEvictor.evict(cacheName, keys);
+        send(cacheName, new ArrayList<>(keys));
+    }
+
+    @Override
+    public void publishAll(String cacheName) {
+        localCacheEvictor.evict(cacheName, List.of());
+        send(cacheName, List.of());
+    }
+
+    private Flux<CacheInvalidationMessage> tail() {
+        String resumeAfter = lastSeenId;
+        boolean positioned = resumeAfter == null;
+        if (resumeAfter != null && !mongoOperations.exists(Query.query(Criteria.where("_id").is(resumeAfter)),
+                CacheInvalidationMessage.COLLECTION)) {
+            // The capped collection wrapped past our position, so some invalidations are gone for good
+            logger.warn("Cache invalidations were missed while disconnected, clearing local caches");
+            localCacheEvictor.evictAll();
+            positioned = true;
+        }
+
+        // The tail always starts at the oldest message; skip up to and including the last one already applied
+        AtomicBoolean caughtUp = new AtomicBoolean(positioned);
+        return reactiveMongoTemplate.tail(new Query(), CacheInvalidationMessage.class, CacheInvalidationMessage.COLLECTION)
+                .filter(message -> {
+                    if (caughtUp.get()) {
+                        return true;
+                    }
+                    if (resumeAfter.equals(message.getId())) {
+                        caughtUp.set(true);
+                    }
+                    return false;
+                });
+    }
+
+    private void receive(CacheInvalidationMessage message) {
+        lastSeenId = message.getId();
+        if (message.getCacheName() != null && !nodeId.equals(message.getNodeId())) {
+            localCacheEvictor.evict(message.getCacheName(), message.getKeys());
+        }
+    }
+
+    private String send(String cacheName, List<String> keys) {
+        CacheInvalidationMessage message = new CacheInvalidationMessage();
+        message.setNodeId(nodeId);
+        message.setCacheName(cacheName);
+        message.setKeys(keys);
+        message.setPublishedAt(Instant.now());
+        try {
+            return mongoOperations.insert(message, CacheInvalidationMessage.COLLECTION).getId();
+        } catch (DataAccessException e) {
+            // The write itself succeeded; other nodes fall back to the cache expiry for this entry
+            logger.error("Failed to publish invalidation for cache {}: {}", cacheName, e.getMessage());
+            return null;
+        }
+    }
+
+    private void ensureCappedCollection() {
+        if (mongoOperations.collectionExists(CacheInvalidationMessage.COLLECTION)) {
+            return;
+        }
+        try {
+            mongoOperations.createCollection(CacheInvalidationMessage.COLLECTION,
+                    CollectionOptions.empty().capped().size(collectionSizeBytes));
+        } catch (DataAccessException e) {
+            logger.debug("Capped collection {} created concurrently: {}",
+                    CacheInvalidationMessage.COLLECTION, e.getMessage());
+        }
+    }
+}
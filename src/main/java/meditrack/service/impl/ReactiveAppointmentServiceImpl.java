@@ -0,0 +1,157 @@
+package meditrack.service.impl;
+
+import meditrack.dto.ApiResponse;
+import meditrack.dto.AppointmentDTO;
+import meditrack.dto.DoctorDTO;
+import meditrack.dto.PatientDTO;
+import meditrack.dto.StatsDTO;
+import meditrack.enums.AppointmentStatus;
+import meditrack.exception.ResourceNotFoundException;
+import meditrack.model.Appointment;
+import meditrack.model.Doctor;
+import meditrack.service.ReactiveAppointmentService;
+import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Service
+@ConditionalOnProperty(name = "appointment.reactive.enabled", havingValue = "true")
+public class ReactiveAppointmentServiceImpl implements ReactiveAppointmentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveAppointmentServiceImpl.class);
+    private static final ParameterizedTypeReference<ApiResponse<PatientDTO>> PATIENT_RESPONSE =
+            new ParameterizedTypeReference<>() {};
+
+    @Autowired private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired private ModelMapper modelMapper;
+
+    @Autowired
+    @Qualifier("patientWebClient")
+    private WebClient patientWebClient;
+
+    @Autowired
+    @Qualifier("doctorWebClient")
+    private WebClient doctorWebClient;
+
+    @Override
+    public Flux<AppointmentDTO> getUpcomingAppointmentsByDoctor(String doctorId) {
+        Query query = Query.query(Criteria.where("doctorId").is(doctorId)
+                .and("appointmentDateTime").gt(LocalDateTime.now()));
+
+        return validateDoctorExists(doctorId)
+                .thenMany(reactiveMongoTemplate.find(query, Appointment.class))
+                .map(this::convertToDTO);
+    }
+
+    @Override
+    public Flux<AppointmentDTO> getAppointmentHistoryByPatient(String patientId) {
+        // One $in query instead of the per-status lookups done on the blocking path
+        Query query = Query.query(Criteria.where("patientId").is(patientId)
+                .and("status").in(AppointmentStatus.COMPLETED.name(), AppointmentStatus.CANCELLED.name(),
+                        AppointmentStatus.NO_SHOW.name()));
+
+        return validatePatientExists(patientId)
+                .thenMany(Flux.concat(
+                        reactiveMongoTemplate.find(query, Appointment.class),
+                        reactiveMongoTemplate.find(query, Appointment.class, Appointment.ARCHIVE_COLLECTION)))
+                .map(this::convertToDTO);
+    }
+
+    @Override
+    public Flux<AppointmentDTO> searchAppointments(String status, String startDate, String endDate) {
+        LocalDateTime start = startDate != null ?
+                LocalDate.parse(startDate).atStartOfDay() :
+                LocalDateTime.now().minusMonths(1);
+
+        LocalDateTime end = endDate != null ?
+                LocalDate.parse(endDate).atTime(23, 59, 59) :
+                LocalDateTime.now().plusMonths(1);
+
+        Criteria criteria = Criteria.where("appointmentDateTime").gt(start).lt(end);
+        if (status != null && !status.isEmpty()) {
+            criteria = criteria.and("status").is(status);
+        }
+
+        return reactiveMongoTemplate.find(Query.query(criteria), Appointment.class)
+                .map(this::convertToDTO);
+    }
+
+    @Override
+    public Mono<StatsDTO> getAppointmentStats() {
+        return Mono.zip(
+                reactiveMongoTemplate.count(new Query(), Appointment.class),
+                countByStatus(AppointmentStatus.PENDING, false),
+                countByStatus(AppointmentStatus.CONFIRMED, false),
+                countByStatus(AppointmentStatus.COMPLETED, false),
+                countByStatus(AppointmentStatus.CANCELLED, false),
+                countByStatus(AppointmentStatus.COMPLETED, true),
+                countByStatus(AppointmentStatus.CANCELLED, true),
+                countByStatus(AppointmentStatus.NO_SHOW, true)
+        ).map(counts -> {
+            StatsDTO stats = new StatsDTO();
+            stats.setTotalAppointments(counts.getT1() + counts.getT6() + counts.getT7() + counts.getT8());
+            stats.setPendingAppointments(counts.getT2());
+            stats.setConfirmedAppointments(counts.getT3());
+            stats.setCompletedAppointments(counts.getT4() + counts.getT6());
+            stats.setCancelledAppointments(counts.getT5() + counts.getT7());
+            return stats;
+        });
+    }
+
+    private Mono<Long> countByStatus(AppointmentStatus status, boolean archived) {
+        Query query = Query.query(Criteria.where("status").is(status.name()));
+        return archived ?
+                reactiveMongoTemplate.count(query, Appointment.class, Appointment.ARCHIVE_COLLECTION) :
+                reactiveMongoTemplate.count(query, Appointment.class);
+    }
+
+    private Mono<Void> validatePatientExists(String patientId) {
+        return patientWebClient.get()
+                .uri("/{patientId}", patientId)
+                .retrieve()
+                .bodyToMono(PATIENT_RESPONSE)
+                .filter(response -> response.isSuccess() && response.getData() != null)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Patient not found with id: " + patientId)))
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new ResourceNotFoundException("Patient not found with id: " + patientId))
+                .onErrorMap(WebClientResponseException.class,
+                        e -> new RuntimeException("Unable to verify patient existence for id: " + patientId +
+                                ". Patient service unavailable: " + e.getMessage()))
+                .then();
+    }
+
+    private Mono<Void> validateDoctorExists(String doctorId) {
+        return doctorWebClient.get()
+                .uri("/doctor/{doctorId}", doctorId)
+                .retrieve()
+                .bodyToMono(DoctorDTO.class)
+                .hasElement()
+                .onErrorResume(e -> {
+                    logger.warn("Failed to validate doctor with service, using local repository: {}", e.getMessage());
+                    return Mono.just(false);
+                })
+                .flatMap(found -> found ? Mono.just(true) : reactiveMongoTemplate.exists(
+                        Query.query(Criteria.where("doctorId").is(doctorId)), Doctor.class))
+                .flatMap(exists -> exists ? Mono.<Void>empty() :
+                        Mono.error(new ResourceNotFoundException("Doctor not found with id: " + doctorId)));
+    }
+
+    private AppointmentDTO convertToDTO(Appointment appointment) {
+        return modelMapper.map(appointment, AppointmentDTO.class);
+    }
+}
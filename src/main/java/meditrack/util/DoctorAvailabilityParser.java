@@ -0,0 +1,108 @@
+package meditrack.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the free-form {@code Doctor.availableDays} and {@code Doctor.workingHours} strings entered
+ * in the doctor panel, e.g. ["Mon-Fri", "Saturday"] and "9:00 AM - 5:00 PM" or "09:00-17:00".
+ */
+public final class DoctorAvailabilityParser {
+
+    private static final Pattern TIME = Pattern.compile("(\\d{1,2})(?:[:.](\\d{2}))?\\s*([AaPp]\\.?[Mm]\\.?)?");
+    private static final Pattern RANGE_SEPARATOR = Pattern.compile("\\s*(?:-|–|to)\\s*", Pattern.CASE_INSENSITIVE);
+
+    private DoctorAvailabilityParser() {
+    }
+
+    /**
+     * Days the doctor works. Null, empty or unparseable input means every day, which is what
+     * booking allowed before days were taken into account.
+     */
+    public static Set<DayOfWeek> parseDays(List<String> availableDays) {
+        if (availableDays == null || availableDays.isEmpty()) {
+            return EnumSet.allOf(DayOfWeek.class);
+        }
+
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String entry : availableDays) {
+            if (entry == null) {
+                continue;
+            }
+            for (String part : entry.split("[,;/]")) {
+                String[] bounds = RANGE_SEPARATOR.split(part.trim(), 2);
+                DayOfWeek first = parseDay(bounds[0]);
+                DayOfWeek last = bounds.length > 1 ? parseDay(bounds[1]) : first;
+                if (first == null || last == null) {
+                    continue;
+                }
+                for (DayOfWeek day = first; ; day = day.plus(1)) {
+                    days.add(day);
+                    if (day == last) {
+                        break;
+                    }
+                }
+            }
+        }
+        return days.isEmpty() ? EnumSet.allOf(DayOfWeek.class) : days;
+    }
+
+    /**
+     * Parses a "start - end" range into {start, end}, or null when it can't be understood.
+     */
+    public static LocalTime[] parseTimeRange(String range) {
+        if (range == null || range.isBlank()) {
+            return null;
+        }
+        String[] bounds = RANGE_SEPARATOR.split(range.trim(), 2);
+        if (bounds.length < 2) {
+            return null;
+        }
+        LocalTime start = parseTime(bounds[0]);
+        LocalTime end = parseTime(bounds[1]);
+        if (start == null || end == null || !end.isAfter(start)) {
+            return null;
+        }
+        return new LocalTime[]{start, end};
+    }
+
+    private static DayOfWeek parseDay(String value) {
+        String day = value.trim().toUpperCase(Locale.ROOT);
+        if (day.length() < 3) {
+            return null;
+        }
+        for (DayOfWeek candidate : DayOfWeek.values()) {
+            if (candidate.name().startsWith(day.substring(0, 3))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static LocalTime parseTime(String value) {
+        Matcher matcher = TIME.matcher(value.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int hour = Integer.parseInt(matcher.group(1));
+        int minute = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+        String meridiem = matcher.group(3);
+        if (meridiem != null) {
+            boolean pm = Character.toUpperCase(meridiem.charAt(0)) == 'P';
+            if (hour < 1 || hour > 12) {
+                return null;
+            }
+            hour = hour % 12 + (pm ? 12 : 0);
+        }
+        if (hour > 23 || minute > 59) {
+            return null;
+        }
+        return LocalTime.of(hour, minute);
+    }
+}
@@ -0,0 +1,225 @@
+package meditrack.util;
+
+import meditrack.model.Doctor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * A doctor's working time compiled from the free-form {@link Doctor} fields into minute-of-day
+ * intervals, so checking a slot is an array lookup rather than string parsing.
+ * <p>
+ * Each day holds sorted, non-overlapping {@code [start, end)} pairs flattened into one array,
+ * e.g. {540, 780, 840, 1020} for 09:00-13:00 and 14:00-17:00. Exceptions override the weekly
+ * pattern for a single date: {@code "2025-12-25"} is a day off and {@code "2025-12-24 09:00-12:00"}
+ * replaces that day's hours. Breaks apply to both.
+ */
+public final class DoctorSchedule {
+
+    private static final LocalTime DEFAULT_START = LocalTime.of(9, 0);
+    private static final LocalTime DEFAULT_END = LocalTime.of(17, 0);
+    private static final int[] CLOSED = new int[0];
+    private static final DoctorSchedule STANDARD = new DoctorSchedule(
+            weekly(EnumSet.allOf(DayOfWeek.class), toWindow(DEFAULT_START, DEFAULT_END)), Map.of(), 0);
+
+    private final int[][] weekly;
+    private final Map<LocalDate, int[]> exceptions;
+    private final int fingerprint;
+
+    private DoctorSchedule(int[][] weekly, Map<LocalDate, int[]> exceptions, int fingerprint) {
+        this.weekly = weekly;
+        this.exceptions = exceptions;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * The 9-17 every-day schedule booking used before doctor schedules were read.
+     */
+    public static DoctorSchedule standard() {
+        return STANDARD;
+    }
+
+    public static DoctorSchedule compile(Doctor doctor) {
+        LocalTime[] hours = DoctorAvailabilityParser.parseTimeRange(doctor.getWorkingHours());
+        int[] breaks = parseBreaks(doctor.getBreaks());
+        int[] hoursWindow = subtract(hours != null ?
+                toWindow(hours[0], hours[1]) :
+                toWindow(DEFAULT_START, DEFAULT_END), breaks);
+
+        Map<LocalDate, int[]> exceptions = new HashMap<>();
+        if (doctor.getScheduleExceptions() != null) {
+            for (String entry : doctor.getScheduleExceptions()) {
+                parseException(entry, breaks, exceptions);
+            }
+        }
+
+        return new DoctorSchedule(weekly(DoctorAvailabilityParser.parseDays(doctor.getAvailableDays()), hoursWindow),
+                Map.copyOf(exceptions), fingerprintOf(doctor));
+    }
+
+    /**
+     * Hash of the fields the schedule is compiled from, used to notice a doctor whose schedule
+     * changed after it was cached.
+     */
+    public static int fingerprintOf(Doctor doctor) {
+        return Objects.hash(doctor.getAvailableDays(), doctor.getWorkingHours(),
+                doctor.getBreaks(), doctor.getScheduleExceptions());
+    }
+
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Working intervals on the given date as flattened {@code [start, end)} minute pairs; empty when off.
+     */
+    public int[] windowsOn(LocalDate date) {
+        int[] override = exceptions.get(date);
+        return override != null ? override : weekly[date.getDayOfWeek().ordinal()];
+    }
+
+    /**
+     * Total working minutes on the given date.
+     */
+    public int workingMinutesOn(LocalDate date) {
+        int[] windows = windowsOn(date);
+        int minutes = 0;
+        for (int i = 0; i < windows.length; i += 2) {
+            minutes += windows[i + 1] - windows[i];
+        }
+        return minutes;
+    }
+
+    /**
+     * Whether the whole of {@code [start, start + durationMinutes)} falls inside a single working interval.
+     */
+    public boolean covers(LocalDateTime start, int durationMinutes) {
+        int from = minuteOfDay(start);
+        int to = from + durationMinutes;
+        int[] windows = windowsOn(start.toLocalDate());
+        for (int i = 0; i < windows.length; i += 2) {
+            if (from >= windows[i] && to <= windows[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Earliest start at or after {@code time} that fits {@code durationMinutes} of working time,
+     * looking at most {@code searchDays} days ahead, or null when there is none.
+     */
+    public LocalDateTime nextStartAtOrAfter(LocalDateTime time, int durationMinutes, int searchDays) {
+        LocalDate date = time.toLocalDate();
+        int minute = minuteOfDay(time);
+        for (int day = 0; day <= searchDays; day++, date = date.plusDays(1), minute = 0) {
+            int[] windows = windowsOn(date);
+            for (int i = 0; i < windows.length; i += 2) {
+                int start = Math.max(minute, windows[i]);
+                if (start + durationMinutes <= windows[i + 1]) {
+                    return date.atStartOfDay().plusMinutes(start);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Human-readable working hours on the given date, e.g. "09:00-13:00, 14:00-17:00".
+     */
+    public String describe(LocalDate date) {
+        int[] windows = windowsOn(date);
+        if (windows.length == 0) {
+            return "not working";
+        }
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < windows.length; i += 2) {
+            joiner.add(LocalTime.MIN.plusMinutes(windows[i]) + "-" + LocalTime.MIN.plusMinutes(windows[i + 1]));
+        }
+        return joiner.toString();
+    }
+
+    // Rounded up, so a start a few seconds past a boundary isn't treated as on it
+    private static int minuteOfDay(LocalDateTime time) {
+        int minute = time.getHour() * 60 + time.getMinute();
+        return time.getSecond() > 0 || time.getNano() > 0 ? minute + 1 : minute;
+    }
+
+    private static int[][] weekly(Set<DayOfWeek> days, int[] window) {
+        int[][] weekly = new int[7][];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            weekly[day.ordinal()] = days.contains(day) ? window : CLOSED;
+        }
+        return weekly;
+    }
+
+    private static int[] toWindow(LocalTime start, LocalTime end) {
+        return new int[]{start.getHour() * 60 + start.getMinute(), end.getHour() * 60 + end.getMinute()};
+    }
+
+    private static int[] parseBreaks(List<String> breaks) {
+        if (breaks == null || breaks.isEmpty()) {
+            return CLOSED;
+        }
+        List<int[]> parsed = new ArrayList<>();
+        for (String entry : breaks) {
+            LocalTime[] range = DoctorAvailabilityParser.parseTimeRange(entry);
+            if (range != null) {
+                parsed.add(toWindow(range[0], range[1]));
+            }
+        }
+        parsed.sort(Comparator.comparingInt(range -> range[0]));
+        int[] flattened = new int[parsed.size() * 2];
+        for (int i = 0; i < parsed.size(); i++) {
+            flattened[i * 2] = parsed.get(i)[0];
+            flattened[i * 2 + 1] = parsed.get(i)[1];
+        }
+        return flattened;
+    }
+
+    private static void parseException(String entry, int[] breaks, Map<LocalDate, int[]> exceptions) {
+        if (entry == null || entry.isBlank()) {
+            return;
+        }
+        String[] parts = entry.trim().split("\\s+", 2);
+        try {
+            LocalDate date = LocalDate.parse(parts[0]);
+            if (parts.length == 1) {
+                exceptions.put(date, CLOSED);
+                return;
+            }
+            LocalTime[] hours = DoctorAvailabilityParser.parseTimeRange(parts[1]);
+            if (hours != null) {
+                exceptions.put(date, subtract(toWindow(hours[0], hours[1]), breaks));
+            }
+        } catch (DateTimeParseException ignored) {
+            // Unreadable entries are skipped rather than closing an arbitrary day
+        }
+    }
+
+    // Removes the sorted break intervals from a single [start, end) window
+    private static int[] subtract(int[] window, int[] breaks) {
+        int[] result = new int[breaks.length + 2];
+        int size = 0;
+        int cursor = window[0];
+        for (int i = 0; i < breaks.length; i += 2) {
+            if (breaks[i + 1] <= cursor || breaks[i] >= window[1]) {
+                continue;
+            }
+            if (breaks[i] > cursor) {
+                result[size++] = cursor;
+                result[size++] = breaks[i];
+            }
+            cursor = Math.max(cursor, breaks[i + 1]);
+        }
+        if (cursor < window[1]) {
+            result[size++] = cursor;
+            result[size++] = window[1];
+        }
+        return Arrays.copyOf(result, size);
+    }
+}
@@ -0,0 +1,95 @@
+package meditrack.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Request-scoped timings of the stages a request goes through (patient lookup, doctor lookup, save...).
+ * A timer is bound to the thread by {@code ServerTimingFilter}; when none is bound, {@link #stage} returns
+ * a shared no-op, so instrumented code costs a ThreadLocal read.
+ * <pre>
+ * DoctorDTO doctor = StageTimer.time("doctor", () -&gt; fetchDoctorDetails(doctorId));
+ * </pre>
+ */
+public final class StageTimer {
+
+    private static final ThreadLocal<StageTimer> CURRENT = new ThreadLocal<>();
+    private static final Stage NO_OP = () -> {
+    };
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
+    private StageTimer() {
+    }
+
+    public interface Stage extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public static StageTimer begin() {
+        StageTimer timer = new StageTimer();
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    public static StageTimer current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static Stage stage(String name) {
+        StageTimer timer = CURRENT.get();
+        if (timer == null) {
+            return NO_OP;
+        }
+        long start = System.nanoTime();
+        return () -> timer.stageNanos.merge(name, System.nanoTime() - start, Long::sum);
+    }
+
+    public static <T> T time(String name, Supplier<T> work) {
+        try (Stage ignored = stage(name)) {
+            return work.get();
+        }
+    }
+
+    public static void time(String name, Runnable work) {
+        try (Stage ignored = stage(name)) {
+            work.run();
+        }
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Stages in the {@code Server-Timing} header format, e.g. {@code patient;dur=12.4, doctor;dur=48.0, total;dur=75.1}.
+     */
+    public String toServerTiming() {
+        StringJoiner header = new StringJoiner(", ");
+        stageNanos.forEach((name, nanos) -> header.add(name + ";dur=" + millis(nanos)));
+        header.add("total;dur=" + millis(System.nanoTime() - startNanos));
+        return header.toString();
+    }
+
+    /**
+     * Stages as {@code name=millis} pairs for the slow-request log.
+     */
+    public String toLogFields() {
+        StringJoiner fields = new StringJoiner(" ");
+        stageNanos.forEach((name, nanos) -> fields.add(name + "_ms=" + millis(nanos)));
+        return fields.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,49 @@
+package meditrack.enums;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static meditrack.enums.AppointmentStatus.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppointmentStatusTest {
+
+    private static final EnumSet<AppointmentStatus> ACTIVE = EnumSet.of(SCHEDULED, PENDING, CONFIRMED, RESCHEDULED, REVISIT);
+    private static final EnumSet<AppointmentStatus> TERMINAL = EnumSet.of(COMPLETED, CANCELLED, NO_SHOW);
+
+    @Test
+    void terminalStatusesCannotTransitionAnywhere() {
+        for (AppointmentStatus from : TERMINAL) {
+            assertTrue(from.isTerminal());
+            for (AppointmentStatus to : AppointmentStatus.values()) {
+                assertFalse(from.canTransitionTo(to), from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void activeStatusesCanBeCancelledCompletedMissedOrRescheduled() {
+        for (AppointmentStatus from : ACTIVE) {
+            assertFalse(from.isTerminal());
+            for (AppointmentStatus to : EnumSet.of(CANCELLED, COMPLETED, NO_SHOW, RESCHEDULED)) {
+                assertTrue(from.canTransitionTo(to), from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void confirmingIsOnlyForUnconfirmedActiveAppointments() {
+        assertEquals(EnumSet.of(SCHEDULED, PENDING, RESCHEDULED, REVISIT), CONFIRMED.allowedSources());
+        assertFalse(CONFIRMED.canTransitionTo(CONFIRMED));
+    }
+
+    @Test
+    void nothingMovesBackIntoTheInitialStatuses() {
+        for (AppointmentStatus target : EnumSet.of(SCHEDULED, PENDING, REVISIT)) {
+            assertTrue(target.allowedSources().isEmpty(), target.name());
+        }
+    }
+}
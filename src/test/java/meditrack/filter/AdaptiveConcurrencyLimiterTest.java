@@ -0,0 +1,125 @@
+package meditrack.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter("test", initial, min, max, 2.0, 0.2);
+    }
+
+    // Keeps the limiter saturated and completes one request per sample, each taking rttMillis
+    private static void drive(AdaptiveConcurrencyLimiter limiter, long rttMillis, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (limiter.tryAcquire()) {
+                // fill up to the current limit
+            }
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(rttMillis), false);
+        }
+    }
+
+    @Test
+    void rejectsBeyondTheLimitAndAdmitsAgainOnRelease() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(1, limiter.getInFlight());
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void growsWhileLatencyStaysAtTheBaseline() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 5, 200);
+
+        drive(limiter, 10, 100);
+
+        assertTrue(limiter.getLimit() > 20, "limit was " + limiter.getLimit());
+    }
+
+    @Test
+    void neverGrowsPastTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 5, 40);
+
+        drive(limiter, 10, 400);
+
+        assertEquals(40, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(20, 5, 200);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksAsLatencyClimbsPastTheTolerance() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 5, 200);
+        drive(limiter, 10, 50);
+        int before = limiter.getLimit();
+
+        drive(limiter, 50, 50);
+
+        assertTrue(limiter.getLimit() < before, "limit went from " + before + " to " + limiter.getLimit());
+    }
+
+    @Test
+    void failuresCutTheLimitButNotBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 5, 200);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        assertEquals(90, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+        }
+        assertEquals(5, limiter.getLimit());
+    }
+
+    @Test
+    void oneSlowSampleAtAWindowBoundaryDoesNotResetTheBaseline() {
+        AdaptiveConcurrencyLimiter limiter = limiter(50, 5, 100);
+        drive(limiter, 10, 499);
+        // The 500th sample closes the first window
+        drive(limiter, 200, 1);
+        int before = limiter.getLimit();
+
+        // 40ms is four times the 10ms no-load latency, still known from the previous window
+        drive(limiter, 40, 100);
+
+        assertTrue(limiter.getLimit() < before, "limit went from " + before + " to " + limiter.getLimit());
+    }
+
+    @Test
+    void picksUpAPermanentLatencyShiftAfterTwoWindows() {
+        AdaptiveConcurrencyLimiter limiter = limiter(50, 5, 100);
+        drive(limiter, 10, 500);
+
+        // Over the whole second window 40ms still counts as overload
+        drive(limiter, 40, 500);
+        int shrunk = limiter.getLimit();
+        assertEquals(5, shrunk);
+
+        // From the third window on, 40ms is the new no-load latency
+        drive(limiter, 40, 100);
+        assertTrue(limiter.getLimit() > shrunk, "limit stayed at " + limiter.getLimit());
+    }
+}
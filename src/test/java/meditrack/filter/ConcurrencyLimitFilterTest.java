@@ -0,0 +1,82 @@
+package meditrack.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConcurrencyLimitFilterTest {
+
+    private MeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(meterRegistry, new ObjectMapper().findAndRegisterModules(),
+                50, 10, 400, 1, 1, 100, 2.0, 0.2, 1);
+    }
+
+    private double inFlight(String pool) {
+        return meterRegistry.get("appointment.concurrency.inflight").tag("pool", pool).gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/appointments/create");
+        request.setAsyncSupported(true);
+        return request;
+    }
+
+    @Test
+    void releasesTheReadPermitWhenTheChainReturns() throws Exception {
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), (req, res) -> {
+            assertEquals(1, inFlight("read"));
+        });
+
+        assertEquals(0, inFlight("read"));
+    }
+
+    @Test
+    void holdsTheWritePermitUntilAsyncProcessingCompletes() throws Exception {
+        MockHttpServletRequest request = request("POST");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1, inFlight("write"));
+        // The write limit is 1, so a second request is shed while the first is still running
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(request("POST"), shed, (req, res) -> {
+        });
+        assertEquals(503, shed.getStatus());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertEquals(0, inFlight("write"));
+    }
+
+    @Test
+    void releasesOnlyOnceWhenAsyncTimesOutAndThenCompletes() throws Exception {
+        MockHttpServletRequest request = request("POST");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+
+        for (AsyncListener listener : context.getListeners()) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+        context.complete();
+
+        assertEquals(0, inFlight("write"));
+        // A second release would have pushed the count below zero and let two requests in
+        filter.doFilter(request("POST"), new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(request("POST"), shed, (req, res) -> {
+        });
+        assertEquals(503, shed.getStatus());
+    }
+}
@@ -0,0 +1,57 @@
+package meditrack.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DoctorAvailabilityParserTest {
+
+    @Test
+    void parsesDayRangesAndSingleDays() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY,
+                        DayOfWeek.FRIDAY, DayOfWeek.SATURDAY),
+                DoctorAvailabilityParser.parseDays(List.of("Mon-Fri", "Saturday")));
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY),
+                DoctorAvailabilityParser.parseDays(List.of("monday, wed")));
+    }
+
+    @Test
+    void wrapsDayRangesOverTheWeekend() {
+        assertEquals(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY, DayOfWeek.MONDAY),
+                DoctorAvailabilityParser.parseDays(List.of("Fri to Mon")));
+    }
+
+    @Test
+    void missingOrUnreadableDaysMeanEveryDay() {
+        assertEquals(EnumSet.allOf(DayOfWeek.class), DoctorAvailabilityParser.parseDays(null));
+        assertEquals(EnumSet.allOf(DayOfWeek.class), DoctorAvailabilityParser.parseDays(List.of()));
+        assertEquals(EnumSet.allOf(DayOfWeek.class), DoctorAvailabilityParser.parseDays(Arrays.asList("xx", null)));
+    }
+
+    @Test
+    void parsesTwelveAndTwentyFourHourRanges() {
+        assertArrayEquals(new LocalTime[]{LocalTime.of(9, 0), LocalTime.of(17, 0)},
+                DoctorAvailabilityParser.parseTimeRange("9:00 AM - 5:00 PM"));
+        assertArrayEquals(new LocalTime[]{LocalTime.of(8, 30), LocalTime.of(12, 0)},
+                DoctorAvailabilityParser.parseTimeRange("08:30-12:00"));
+        assertArrayEquals(new LocalTime[]{LocalTime.of(0, 0), LocalTime.of(12, 0)},
+                DoctorAvailabilityParser.parseTimeRange("12 am to 12 pm"));
+    }
+
+    @Test
+    void rejectsUnreadableOrBackwardsRanges() {
+        assertNull(DoctorAvailabilityParser.parseTimeRange(null));
+        assertNull(DoctorAvailabilityParser.parseTimeRange("09:00"));
+        assertNull(DoctorAvailabilityParser.parseTimeRange("17:00-09:00"));
+        assertNull(DoctorAvailabilityParser.parseTimeRange("13 PM - 14 PM"));
+        assertNull(DoctorAvailabilityParser.parseTimeRange("soon - later"));
+    }
+}
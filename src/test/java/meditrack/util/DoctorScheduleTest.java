@@ -0,0 +1,127 @@
+package meditrack.util;
+
+import meditrack.model.Doctor;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DoctorScheduleTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2025, 12, 22);
+    private static final LocalDate CHRISTMAS_EVE = LocalDate.of(2025, 12, 24);
+    private static final LocalDate CHRISTMAS = LocalDate.of(2025, 12, 25);
+    private static final LocalDate SATURDAY = LocalDate.of(2025, 12, 27);
+
+    private static Doctor doctor(List<String> days, String hours, List<String> breaks, List<String> exceptions) {
+        Doctor doctor = new Doctor();
+        doctor.setAvailableDays(days);
+        doctor.setWorkingHours(hours);
+        doctor.setBreaks(breaks);
+        doctor.setScheduleExceptions(exceptions);
+        return doctor;
+    }
+
+    @Test
+    void defaultsToNineToFiveEveryDay() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(null, null, null, null));
+
+        assertArrayEquals(new int[]{540, 1020}, schedule.windowsOn(SATURDAY));
+        assertEquals(480, schedule.workingMinutesOn(MONDAY));
+    }
+
+    @Test
+    void compilesWorkingDaysAndHours() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(List.of("Mon-Fri"), "8:00 AM - 4:30 PM", null, null));
+
+        assertArrayEquals(new int[]{480, 990}, schedule.windowsOn(MONDAY));
+        assertArrayEquals(new int[0], schedule.windowsOn(SATURDAY));
+        assertEquals(0, schedule.workingMinutesOn(SATURDAY));
+        assertEquals("not working", schedule.describe(SATURDAY));
+    }
+
+    @Test
+    void takesBreaksOutOfEveryDay() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(List.of("Mon-Fri"), "09:00-17:00",
+                List.of("15:00-15:15", "13:00-14:00"), null));
+
+        assertArrayEquals(new int[]{540, 780, 840, 900, 915, 1020}, schedule.windowsOn(MONDAY));
+        assertEquals(405, schedule.workingMinutesOn(MONDAY));
+        assertEquals("09:00-13:00, 14:00-15:00, 15:15-17:00", schedule.describe(MONDAY));
+    }
+
+    @Test
+    void ignoresBreaksOutsideTheWorkingHours() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(null, "09:00-12:00",
+                List.of("07:00-08:00", "11:30-13:00"), null));
+
+        assertArrayEquals(new int[]{540, 690}, schedule.windowsOn(MONDAY));
+    }
+
+    @Test
+    void exceptionDaysOverrideTheWeeklyPattern() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(List.of("Mon-Fri"), "09:00-17:00",
+                List.of("10:00-10:30"), List.of("2025-12-25", "2025-12-24 09:00-12:00", "2025-12-27 10:00-11:00")));
+
+        assertEquals(0, schedule.workingMinutesOn(CHRISTMAS));
+        // Breaks still apply to changed hours
+        assertArrayEquals(new int[]{540, 600, 630, 720}, schedule.windowsOn(CHRISTMAS_EVE));
+        assertEquals(150, schedule.workingMinutesOn(CHRISTMAS_EVE));
+        // A normally closed day can be opened, less its break
+        assertArrayEquals(new int[]{630, 660}, schedule.windowsOn(SATURDAY));
+        assertEquals(450, schedule.workingMinutesOn(MONDAY));
+    }
+
+    @Test
+    void skipsUnreadableExceptions() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(null, "09:00-17:00", null,
+                List.of("next tuesday", "2025-12-22 whenever", " ")));
+
+        assertEquals(480, schedule.workingMinutesOn(MONDAY));
+        assertEquals(480, schedule.workingMinutesOn(LocalDate.of(2025, 12, 23)));
+    }
+
+    @Test
+    void coversOnlySlotsInsideOneWindow() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(null, "09:00-17:00", List.of("13:00-14:00"), null));
+
+        assertTrue(schedule.covers(MONDAY.atTime(12, 30), 30));
+        assertFalse(schedule.covers(MONDAY.atTime(12, 45), 30));
+        assertFalse(schedule.covers(MONDAY.atTime(8, 45), 30));
+        assertTrue(schedule.covers(MONDAY.atTime(16, 30), 30));
+        // A start a few seconds past a boundary no longer fits the minute before the end
+        assertFalse(schedule.covers(MONDAY.atTime(16, 30, 5), 30));
+    }
+
+    @Test
+    void findsTheNextStartThatFits() {
+        DoctorSchedule schedule = DoctorSchedule.compile(doctor(List.of("Mon-Fri"), "09:00-17:00",
+                List.of("13:00-14:00"), null));
+
+        assertEquals(MONDAY.atTime(14, 0), schedule.nextStartAtOrAfter(MONDAY.atTime(12, 45), 30, 7));
+        assertEquals(MONDAY.atTime(9, 0), schedule.nextStartAtOrAfter(MONDAY.atTime(6, 0), 30, 7));
+        LocalDateTime fridayEvening = LocalDate.of(2025, 12, 26).atTime(16, 45);
+        assertEquals(LocalDate.of(2025, 12, 29).atTime(9, 0), schedule.nextStartAtOrAfter(fridayEvening, 30, 7));
+        assertNull(schedule.nextStartAtOrAfter(fridayEvening, 30, 1));
+    }
+
+    @Test
+    void fingerprintFollowsTheScheduleFields() {
+        Doctor doctor = doctor(List.of("Mon-Fri"), "09:00-17:00", List.of("13:00-14:00"), null);
+        int before = DoctorSchedule.compile(doctor).getFingerprint();
+
+        doctor.setDepartment("Cardiology");
+        assertEquals(before, DoctorSchedule.fingerprintOf(doctor));
+
+        doctor.setScheduleExceptions(List.of("2025-12-25"));
+        assertNotEquals(before, DoctorSchedule.fingerprintOf(doctor));
+    }
+}